@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.gpperhour.GoldDropManager.GoldDropDisplayMode;
+
+//Synthetic, seeded data shared by the benchmarks so runs are reproducible offline without a client.
+//Prices and names are put straight into the plugin's static caches, which is where every lookup
+//in the benchmarked code ends up, instead of going through ItemManager.
+final class BenchmarkData
+{
+	static final long SEED = 1337L;
+	//spread of item ids the synthetic inventories are drawn from
+	static final int ITEM_ID_RANGE = 30000;
+	//ids with a seeded price, above every id currently in the game so remaps never miss the cache
+	static final int PRICED_ID_RANGE = 40000;
+	//typical inventory and equipment
+	static final int INVENTORY_SIZE = 28 + 11;
+
+	//Ids from FractionalRemapper's table (glory(2), ring of wealth (3), skills necklace(1), menaphite remedy(2), combat bracelet(3))
+	static final int[] REMAPPED_IDS = {1708, 11984, 11111, 27208, 11120};
+
+	private BenchmarkData()
+	{
+	}
+
+	static Random random()
+	{
+		return new Random(SEED);
+	}
+
+	//a price and name for every id an inventory can contain
+	static void seedPrices()
+	{
+		Random random = random();
+		Map<Integer, Float> prices = new HashMap<>();
+		Map<Integer, String> names = new HashMap<>();
+		for (int itemId = 0; itemId < PRICED_ID_RANGE; ++itemId)
+		{
+			prices.put(itemId, (float) random.nextInt(100000));
+			names.put(itemId, "Item " + itemId);
+		}
+		GPPerHourPlugin.putItemPricesAndNames(prices, names);
+	}
+
+	static ItemQtyMap randomInventory(Random random, int itemCount)
+	{
+		ItemQtyMap qtyMap = new ItemQtyMap();
+		for (int i = 0; i < itemCount; ++i)
+		{
+			qtyMap.add(random.nextInt(ITEM_ID_RANGE), 1 + random.nextInt(1000));
+		}
+		return qtyMap;
+	}
+
+	//the same inventory with some items used up or gained, like the end of a trip
+	static ItemQtyMap endOfTrip(Random random, ItemQtyMap initial, int changedItems)
+	{
+		ItemQtyMap qtyMap = new ItemQtyMap();
+		qtyMap.copyFrom(initial);
+		for (int i = 0; i < changedItems; ++i)
+		{
+			qtyMap.add(random.nextInt(ITEM_ID_RANGE), random.nextInt(200) - 100);
+		}
+		return qtyMap;
+	}
+
+	//every item at its default value, only the setters have to be implemented
+	static GPPerHourConfig defaultConfig()
+	{
+		return new GPPerHourConfig()
+		{
+			@Override
+			public void setGoldDrops(boolean value)
+			{
+			}
+
+			@Override
+			public void setGoldDropsDisplayMode(GoldDropDisplayMode value)
+			{
+			}
+
+			@Override
+			public void setEnableSessionTracking(boolean value)
+			{
+			}
+		};
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Reading a saved session back, from the old json and from SaveDataCodec's binary form.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SaveDataCodecBenchmark
+{
+	//distinct items a session has seen
+	@Param({"40", "400"})
+	public int itemCount;
+
+	private final Gson gson = new Gson();
+	private byte[] json;
+	private byte[] binary;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		Random random = BenchmarkData.random();
+		ItemQtyMap initialQtys = BenchmarkData.randomInventory(random, itemCount);
+		ItemQtyMap qtys = BenchmarkData.endOfTrip(random, initialQtys, itemCount / 4);
+		SessionStats stats = new SessionStats(1_700_000_000_000L, 3_600_000L, 1_000_000L, -250_000L, 750_000L, 12,
+			300_000L, initialQtys, qtys);
+		stats.sessionID = "00000000-0000-0000-0000-000000000000";
+		stats.sessionName = "Benchmark session";
+		json = gson.toJson(stats).getBytes(StandardCharsets.UTF_8);
+		binary = SaveDataCodec.encodeSession(stats);
+	}
+
+	@Benchmark
+	public SessionStats decodeJson() throws IOException
+	{
+		return SaveDataCodec.decodeSession(json, gson);
+	}
+
+	@Benchmark
+	public SessionStats decodeBinary() throws IOException
+	{
+		return SaveDataCodec.decodeSession(binary, gson);
+	}
+}
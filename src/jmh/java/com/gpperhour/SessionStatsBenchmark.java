@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//SessionManager.getActiveSessionStats for sessions of different lengths, where the last trip is in progress.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SessionStatsBenchmark
+{
+	@Param({"10", "100", "1000"})
+	public int tripCount;
+
+	private SessionManager sessionManager;
+	private TripData activeTrip;
+	private String[] tripIds;
+	private int nextStart;
+
+	@Setup
+	public void setUp()
+	{
+		BenchmarkData.seedPrices();
+		Random random = BenchmarkData.random();
+		sessionManager = new SessionManager(null, BenchmarkData.defaultConfig(), null, null, null);
+		tripIds = new String[tripCount];
+		long time = 0;
+		for (int i = 0; i < tripCount; ++i)
+		{
+			TripData trip = new TripData();
+			trip.identifier = "trip" + i;
+			trip.runStartTime = time;
+			trip.runtime = 60_000 + random.nextInt(600_000);
+			trip.initialItemQtys = BenchmarkData.randomInventory(random, BenchmarkData.INVENTORY_SIZE);
+			trip.itemQtys = BenchmarkData.endOfTrip(random, trip.initialItemQtys, 10);
+			sessionManager.onTripStarted(trip);
+			time += trip.runtime + 30_000;
+			//everything but the last trip is done
+			if (i < tripCount - 1)
+			{
+				trip.runEndTime = trip.runStartTime + trip.runtime;
+				sessionManager.onTripCompleted(trip);
+			}
+			else
+			{
+				activeTrip = trip;
+			}
+			tripIds[i] = trip.identifier;
+		}
+		sessionManager.getActiveSessionStats();
+	}
+
+	//nothing changed since the last call, e.g. the overlay rendering between ticks
+	@Benchmark
+	public SessionStats unchanged()
+	{
+		return sessionManager.getActiveSessionStats();
+	}
+
+	//the in progress trip was re-valued, like on a tick where the inventory changed
+	@Benchmark
+	public SessionStats activeTripChanged()
+	{
+		activeTrip.qtyVersion++;
+		return sessionManager.getActiveSessionStats();
+	}
+
+	//moving the session start around in the active session panel
+	@Benchmark
+	public SessionStats sessionStartMoved()
+	{
+		sessionManager.setSessionStart(tripIds[nextStart]);
+		nextStart = (nextStart + 7) % tripIds.length;
+		return sessionManager.getActiveSessionStats();
+	}
+}
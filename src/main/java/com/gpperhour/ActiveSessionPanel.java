@@ -27,7 +27,6 @@ package com.gpperhour;
 import java.util.LinkedList;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.callback.ClientThread;
-import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.PluginPanel;
@@ -41,10 +40,7 @@ import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
 import java.awt.*;
-import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.stream.Collectors;
 import java.util.List;
 
 @Slf4j
@@ -65,7 +61,7 @@ class ActiveSessionPanel extends PluginPanel
 
 	private final GPPerHourConfig config;
 	private final GPPerHourPlugin plugin;
-	private final ItemManager itemManager;
+	private final ItemImageCache itemImageCache;
 	private final ClientThread clientThread;
 	private final SessionManager sessionManager;
 	private final JPanel tripsPanel = new JPanel();
@@ -75,12 +71,12 @@ class ActiveSessionPanel extends PluginPanel
 	private final JPanel sessionInfoPanel;
 	private final List<TripPanelData> tripPanels = new LinkedList<>();
 
-	ActiveSessionPanel(GPPerHourPlugin plugin, GPPerHourConfig config, ItemManager itemManager,
+	ActiveSessionPanel(GPPerHourPlugin plugin, GPPerHourConfig config, ItemImageCache itemImageCache,
 			ClientThread clientThread, SessionManager sessionManager)
 	{
 		this.plugin = plugin;
 		this.config = config;
-		this.itemManager = itemManager;
+		this.itemImageCache = itemImageCache;
 		this.clientThread = clientThread;
 		this.sessionManager = sessionManager;
 		this.sessionInfoPanel = new JPanel();
@@ -282,10 +278,8 @@ class ActiveSessionPanel extends PluginPanel
 		{
 			return;
 		}
-		Map<String, TripData> trips = sessionManager.getActiveTrips();
-
-		List<TripData> runDataSorted = trips.values().stream()
-				.sorted(Comparator.comparingLong(o -> o.runStartTime)).collect(Collectors.toList());
+		//ledgers and totals come from the analytics worker, this only lays them out
+		AnalyticsFrame frame = plugin.getAnalyticsFrame();
 
 		int tripIndex = 0;
 		previousLedger = null;
@@ -293,9 +287,9 @@ class ActiveSessionPanel extends PluginPanel
 		repeatCount = 0;
 		consecutiveRepeatCount = 0;
 		combinedRuntime = 0;
-		for (TripData runData : runDataSorted)
+		for (TripData runData : frame.getTrips())
 		{
-			boolean validTrip = renderTrip(runData, tripIndex);
+			boolean validTrip = renderTrip(runData, frame.getTripLedger(runData.identifier), tripIndex);
 			if (!validTrip)
 			{
 				continue;
@@ -308,7 +302,7 @@ class ActiveSessionPanel extends PluginPanel
 			getPanelData(i).masterPanel.setVisible(false);
 		}
 
-		SessionStats stats = sessionManager.getActiveSessionStats();
+		SessionStats stats = frame.getSessionStats();
 		if (stats == null)
 		{
 			sessionNameLabel.setText(sessionNameLabelPlaceholder);
@@ -320,14 +314,13 @@ class ActiveSessionPanel extends PluginPanel
 			tripCountLabel.setText(htmlLabel(tripCountLabelPrefix, "N/A"));
 			avgTripDurationLabel.setText(htmlLabel(avgTripDurationLabelPrefix, "N/A"));
 			if (showSessionLootGrid)
-				UI.updateLootGrid(emptyLedger, sessionLootPanelData, itemManager, config, config.sessionLootGridMaxHeight());
+				UI.updateLootGrid(emptyLedger, sessionLootPanelData, itemImageCache, config, config.sessionLootGridMaxHeight());
 			updateErrorPanel(false);
 		} else
 		{
 			sessionNameLabel.setText(sessionNameLabelPlaceholder);
 			gpPerHourLabel.setText(htmlLabel(gpPerHourLabelPrefix,
-					UI.formatGp(UI.getGpPerHour(stats.getSessionRuntime(), stats.getNetTotal()),
-							config.showExactGp()) + "/hr"));
+					UI.formatGp(frame.getSessionGpPerHour(), config.showExactGp()) + "/hr"));
 			netTotalLabel.setText(
 					htmlLabel(netTotalLabelPrefix, UI.formatGp(stats.getNetTotal(), config.showExactGp())));
 			totalGainsLabel.setText(
@@ -344,8 +337,7 @@ class ActiveSessionPanel extends PluginPanel
 						.setText(htmlLabel(avgTripDurationLabelPrefix, UI.formatTime(stats.getAvgTripDuration())));
 			}
 			if (showSessionLootGrid)
-				UI.updateLootGrid(UI.sortLedger(GPPerHourPlugin.getProfitLossLedger(stats.getInitialQtys(), stats.getQtys())),
-					sessionLootPanelData, itemManager, config, config.sessionLootGridMaxHeight());
+				UI.updateLootGrid(frame.getSessionLedger(), sessionLootPanelData, itemImageCache, config, config.sessionLootGridMaxHeight());
 			updateErrorPanel(true);
 		}
 		sessionLootPanelData.lootPanel.setVisible(showSessionLootGrid);
@@ -386,13 +378,8 @@ class ActiveSessionPanel extends PluginPanel
 	long previousGpPerHour = 0;
 	long combinedRuntime;
 
-	boolean renderTrip(TripData runData, int tripIndex)
+	boolean renderTrip(TripData runData, List<LedgerItem> ledger, int tripIndex)
 	{
-		List<LedgerItem> ledger = GPPerHourPlugin.getProfitLossLedger(runData.initialItemQtys,
-				runData.itemQtys);
-
-		ledger = UI.sortLedger(ledger);
-
 		if (!runData.isInProgress() && UI.ledgersMatch(ledger, previousLedger))
 		{
 			consecutiveRepeatCount++;
@@ -460,7 +447,7 @@ class ActiveSessionPanel extends PluginPanel
 		updateButtonPause(tpData, runData);
 		updatePopupMenu(tpData, runData);
 
-		UI.updateLootGrid(ledger, tpData.lootPanelData, itemManager, config, 0);
+		UI.updateLootGrid(ledger, tpData.lootPanelData, itemImageCache, config, 0);
 
 		consecutiveRepeatCount = 0;
 		previousLedger = ledger;
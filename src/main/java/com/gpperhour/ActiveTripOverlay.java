@@ -27,14 +27,14 @@ package com.gpperhour;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
 import java.time.Instant;
-import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -48,7 +48,6 @@ import net.runelite.api.Client;
 import net.runelite.api.gameval.ItemID;
 import net.runelite.api.gameval.SpriteID;
 import net.runelite.api.widgets.Widget;
-import net.runelite.client.game.ItemManager;
 import net.runelite.client.game.SpriteManager;
 import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.overlay.Overlay;
@@ -71,7 +70,7 @@ class ActiveTripOverlay extends Overlay
 	private final GPPerHourPlugin plugin;
 	private final GPPerHourConfig config;
 
-	private final ItemManager itemManager;
+	private final ItemImageCache itemImageCache;
 	private final SpriteManager spriteManager;
 
 	private long lastGpPerHour;
@@ -86,6 +85,34 @@ class ActiveTripOverlay extends Overlay
     private BufferedImage coinsImage10000;
 	private InventoryWidgetData lastWidgetData;
 
+	//everything the total box image is drawn from, it's only redrawn when one of these changes
+	@Data
+	private static class TotalBoxKey
+	{
+		private final String totalText;
+		private final String runTimeText;
+		private final int width;
+		private final int height;
+		private final int cornerRadius;
+		private final Color backgroundColor;
+		private final Color borderColor;
+		private final Color textColor;
+		private final int actualRunTimeWidth;
+		private final int imageWidthWithPadding;
+		private final BufferedImage coinsImage;
+		private final BufferedImage checkImage;
+		private final Font font;
+	}
+	private TotalBoxKey totalBoxKey;
+	private BufferedImage totalBoxImage;
+
+	private static final Color LEDGER_ITEM_COLOR = Color.decode("#FFF7E3");
+	private LedgerTooltip ledgerTooltip;
+	private int ledgerTooltipTick = -1;
+	private AnalyticsFrame ledgerTooltipFrame;
+	private InventoryOverlayDisplayMode ledgerTooltipMode;
+	private Font ledgerTooltipFont;
+
 	@Data
 	private class InventoryWidgetData
 	{
@@ -121,7 +148,7 @@ class ActiveTripOverlay extends Overlay
     }
 
 	@Inject
-	private ActiveTripOverlay(Client client, GPPerHourPlugin plugin, GPPerHourConfig config, ItemManager itemManager, SpriteManager spriteManager)
+	private ActiveTripOverlay(Client client, GPPerHourPlugin plugin, GPPerHourConfig config, ItemImageCache itemImageCache, SpriteManager spriteManager)
 	{
 		super(plugin);
 		setPosition(OverlayPosition.DYNAMIC);
@@ -131,7 +158,7 @@ class ActiveTripOverlay extends Overlay
 		this.plugin = plugin;
 		this.config = config;
 
-		this.itemManager = itemManager;
+		this.itemImageCache = itemImageCache;
 		this.spriteManager = spriteManager;
 	}
 
@@ -172,7 +199,7 @@ class ActiveTripOverlay extends Overlay
 
 	private void renderActiveSessionTotal(Graphics2D graphics)
 	{
-		SessionStats sessionStats = plugin.getSessionManager().getActiveSessionStats();
+		SessionStats sessionStats = plugin.getAnalyticsFrame().getSessionStats();
 		if (sessionStats == null)
 		{
 			String totalText = "0";
@@ -259,7 +286,7 @@ class ActiveTripOverlay extends Overlay
 
     private BufferedImage loadCoinsImage(int quantity)
     {
-		BufferedImage image = itemManager.getImage(ItemID.COINS, quantity, false);
+		BufferedImage image = itemImageCache.getImage(ItemID.COINS, quantity, false);
 		image = ImageUtil.resizeImage(image, imageSize, imageSize);
 		return image;
     }
@@ -405,314 +432,244 @@ class ActiveTripOverlay extends Overlay
 			cornerRadius = 0;
 		}
 
-		int containerAlpha = backgroundColor.getAlpha();
+		TotalBoxKey boxKey = new TotalBoxKey(totalText, runTimeText, width, height, cornerRadius,
+			backgroundColor, borderColor, textColor, actualRunTimeWidth, imageWidthWithPadding,
+			showCoinStack ? getCoinsImage(numCoins / 100) : null,//divide by 100 to get more variation in coins image
+			showCheckIcon ? getRedXImage() : null, graphics.getFont());
+		if (!boxKey.equals(totalBoxKey))
+		{
+			totalBoxKey = boxKey;
+			totalBoxImage = drawTotalBox(boxKey, graphics);
+		}
+		graphics.drawImage(totalBoxImage, x, y, null);
+
+		net.runelite.api.Point mouse = client.getMouseCanvasPosition();
+		int mouseX = mouse.getX();
+		int mouseY = mouse.getY();
+
+		boolean isTripRunning = !config.inventoryOverlayDisplayMode().sessionData && plugin.getState() != RunState.BANK && !plugin.getRunData().isBankDelay;
+		boolean isSessionRunning = config.inventoryOverlayDisplayMode().sessionData && plugin.getAnalyticsFrame().getSessionStats() != null;
+
+		RoundRectangle2D roundRectangle2D = new RoundRectangle2D.Double(x, y, width + 1, height + 1, cornerRadius, cornerRadius);
+		if (roundRectangle2D.contains(mouseX, mouseY) && (isTripRunning || isSessionRunning) && config.showLedgerOnHover())
+		{
+			renderLedgerTooltip(graphics);
+		}
+	}
+
+	//The box is drawn at the origin of its own image, one pixel wider and taller for the border
+	private static BufferedImage drawTotalBox(TotalBoxKey key, Graphics2D target)
+	{
+		int width = key.width;
+		int height = key.height;
+		BufferedImage image = new BufferedImage(width + 2, height + 2, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setRenderingHints(target.getRenderingHints());
+		graphics.setFont(key.font);
+
+		int containerAlpha = key.backgroundColor.getAlpha();
 
 		if (containerAlpha > 0) {
-			graphics.setColor(borderColor);
-			graphics.drawRoundRect(x, y, width + 1, height + 1, cornerRadius, cornerRadius);
+			graphics.setColor(key.borderColor);
+			graphics.drawRoundRect(0, 0, width + 1, height + 1, key.cornerRadius, key.cornerRadius);
 		}
 
-		graphics.setColor(backgroundColor);
+		graphics.setColor(key.backgroundColor);
 
-		graphics.fillRoundRect(x + 1, y + 1, width, height, cornerRadius, cornerRadius);
+		graphics.fillRoundRect(1, 1, width, height, key.cornerRadius, key.cornerRadius);
 
 		TextComponent textComponent = new TextComponent();
 
-		textComponent.setColor(textColor);
-		textComponent.setText(totalText);
-		textComponent.setPosition(new Point(x + HORIZONTAL_PADDING, y + TEXT_Y_OFFSET));
+		textComponent.setColor(key.textColor);
+		textComponent.setText(key.totalText);
+		textComponent.setPosition(new Point(HORIZONTAL_PADDING, TEXT_Y_OFFSET));
 		textComponent.render(graphics);
 
-		if (runTimeText != null)
+		if (key.runTimeText != null)
 		{
 			textComponent = new TextComponent();
 
-			textComponent.setColor(textColor);
-			textComponent.setText(runTimeText);
-			textComponent.setPosition(new Point((x + width) - HORIZONTAL_PADDING - actualRunTimeWidth - imageWidthWithPadding, y + TEXT_Y_OFFSET));
+			textComponent.setColor(key.textColor);
+			textComponent.setText(key.runTimeText);
+			textComponent.setPosition(new Point(width - HORIZONTAL_PADDING - key.actualRunTimeWidth - key.imageWidthWithPadding, TEXT_Y_OFFSET));
 			textComponent.render(graphics);
 		}
 
-		if (showCoinStack)
+		if (key.coinsImage != null)
 		{
 			int imageOffset = 4;
-			if (showCheckIcon)
-				imageOffset -= imageWidthWithPadding / 2;
+			if (key.checkImage != null)
+				imageOffset -= key.imageWidthWithPadding / 2;
 
-			BufferedImage image = getCoinsImage(numCoins / 100);//divide by 100 to get more variation in coins image
-			graphics.drawImage(image, (x + width) - HORIZONTAL_PADDING - imageSize + imageOffset, y + 3, null);
+			graphics.drawImage(key.coinsImage, width - HORIZONTAL_PADDING - imageSize + imageOffset, 3, null);
 		}
 
-		if (showCheckIcon)
+		if (key.checkImage != null)
 		{
 			int imageOffset = 4;
 
-			BufferedImage redXImage = getRedXImage();
-			graphics.drawImage(redXImage, (x + width) - HORIZONTAL_PADDING - imageSize + imageOffset, y + 3, null);
+			graphics.drawImage(key.checkImage, width - HORIZONTAL_PADDING - imageSize + imageOffset, 3, null);
 		}
 
-		net.runelite.api.Point mouse = client.getMouseCanvasPosition();
-		int mouseX = mouse.getX();
-		int mouseY = mouse.getY();
-
-		boolean isTripRunning = !config.inventoryOverlayDisplayMode().sessionData && plugin.getState() != RunState.BANK && !plugin.getRunData().isBankDelay;
-		boolean isSessionRunning = config.inventoryOverlayDisplayMode().sessionData && plugin.getSessionManager().getActiveSessionStats() != null;
+		graphics.dispose();
+		return image;
+	}
 
-		RoundRectangle2D roundRectangle2D = new RoundRectangle2D.Double(x, y, width + 1, height + 1, cornerRadius, cornerRadius);
-		if (roundRectangle2D.contains(mouseX, mouseY) && (isTripRunning || isSessionRunning) && config.showLedgerOnHover())
-		{
-			if (config.inventoryOverlayDisplayMode() == InventoryOverlayDisplayMode.INVENTORY_TOTAL)
-			{
-				renderLedger(graphics);
-			}
-			else
-			{
-				renderProfitLossLedger(graphics);
-			}
+	//Hover ledger drawn at most once per tick (or when the frame, mode or font changes), render only blits it.
+	private void renderLedgerTooltip(Graphics2D graphics)
+	{
+		AnalyticsFrame frame = plugin.getAnalyticsFrame();
+		InventoryOverlayDisplayMode displayMode = config.inventoryOverlayDisplayMode();
+		int tick = client.getTickCount();
+		Font font = graphics.getFont();
+		if (ledgerTooltip == null || ledgerTooltipTick != tick || ledgerTooltipFrame != frame
+			|| ledgerTooltipMode != displayMode || ledgerTooltipFont != font)
+		{
+			ledgerTooltipTick = tick;
+			ledgerTooltipFrame = frame;
+			ledgerTooltipMode = displayMode;
+			ledgerTooltipFont = font;
+			List<LedgerEntry> ledgerEntries = displayMode == InventoryOverlayDisplayMode.INVENTORY_TOTAL
+				? createInventoryEntries() : createProfitLossEntries(frame, displayMode.sessionData);
+			ledgerTooltip = new LedgerTooltip(ledgerEntries, graphics);
 		}
+
+		net.runelite.api.Point mouse = client.getMouseCanvasPosition();
+		ledgerTooltip.render(graphics, mouse.getX() - ledgerTooltip.width - 10, mouse.getY() - ledgerTooltip.height / 2);
 	}
 
-	private void renderLedger(Graphics2D graphics)
+	private List<LedgerEntry> createInventoryEntries()
 	{
-		FontMetrics fontMetrics = graphics.getFontMetrics();
-
-		java.util.List<LedgerItem> ledger = plugin.getInventoryLedger().stream()
-				.filter(item -> item.getQty() > (GPPerHourPlugin.roundAmount/2f)).collect(Collectors.toList());
+		List<LedgerItem> ledger = plugin.getInventoryLedger().stream()
+				.filter(item -> item.getQty() > (GPPerHourPlugin.roundAmount/2f))
+				.collect(Collectors.toList());
+		LedgerSelection selection = LedgerSelection.select(ledger, config.maxLedgerItems());
 
-		LinkedList<LedgerEntry> ledgerEntries = new LinkedList<>();
+		List<LedgerEntry> ledgerEntries = new ArrayList<>(selection.getItems().size() + 4);
 		ledgerEntries.add(createTitleEntry(false));
-		if (ledger.isEmpty())
+		if (selection.isEmpty())
 		{
 			ledgerEntries.add(createEmptyEntry());
 		}
 		else
 		{
-			ledger = ledger.stream().sorted(Comparator.comparingLong(o ->
-					-o.getCombinedValue())
-			).collect(Collectors.toList());
-
-			String [] descriptions = ledger.stream().map(item -> {
-				String desc = item.getDescription();
-				if (item.getQty() != 0 && Math.abs(item.getQty()) != 1 && !item.getDescription().contains("Coins"))
-				{
-					desc = UI.formatQuantity(item.getQty(), true) + " " + desc;
-				}
-				return desc;
-			}).toArray(String[]::new);
-			Long [] prices = ledger.stream().map(item -> item.getCombinedValue()).toArray(Long[]::new);
-
-			if (descriptions.length == prices.length)
+			for (LedgerItem item : selection.getItems())
 			{
-				for (int i = 0; i < descriptions.length; i++)
-				{
-					String desc = descriptions[i];
-					long price = prices[i];
-					String rightText = formatNumber(price);
-					Color leftColor = Color.decode("#FFF7E3");
-					Color rightColor = price > 0 ? Color.GREEN : Color.WHITE;
-					ledgerEntries.add(new LedgerEntry(desc, leftColor, rightText, rightColor, false));
-				}
+				long price = item.getCombinedValue();
+				Color rightColor = price > 0 ? Color.GREEN : Color.WHITE;
+				ledgerEntries.add(new LedgerEntry(getDescription(item), LEDGER_ITEM_COLOR, formatNumber(price), rightColor, false));
 			}
-			long total = ledger.stream().mapToLong(item -> item.getCombinedValue()).sum();
+			addHiddenEntry(ledgerEntries, selection);
+			long total = selection.getTotalGain();
 			ledgerEntries.add(new LedgerEntry("Total", Color.ORANGE, formatNumber(total), priceToColor(total), true));
 		}
-		boolean firstCharge = true;
-		for (String itemName : plugin.getChargeableItemsNeedingCheck())
-		{
-			ledgerEntries.add(new LedgerEntry("Check " + itemName + " to calibrate.", Color.RED, "", Color.WHITE, firstCharge));
-			firstCharge = false;
-		}
-
-		int maxRowW = 0;
-		int sectionPadding = 5;
-		int sectionPaddingTotal = 0;
-		for(LedgerEntry entry : ledgerEntries)
-		{
-			int width = fontMetrics.stringWidth(entry.leftText) + fontMetrics.stringWidth(entry.rightText);
-			if (width > maxRowW)
-				maxRowW = width;
-			if (entry.addGapBefore)
-				sectionPaddingTotal += sectionPadding;
-			if (entry.addGapAfter)
-				sectionPaddingTotal += sectionPadding;
-		}
-
-		net.runelite.api.Point mouse = client.getMouseCanvasPosition();
-		int mouseX = mouse.getX();
-		int mouseY = mouse.getY();
-
-
-		int rowW = maxRowW + 20 + HORIZONTAL_PADDING * 2;
-		int rowH = fontMetrics.getHeight();
-
-		int h = ledgerEntries.size() * rowH + TEXT_Y_OFFSET / 2 + sectionPaddingTotal + 2;
-
-		int x = mouseX - rowW - 10;
-		int y = mouseY - h / 2;
-
-		int cornerRadius = 0;
-
-		graphics.setColor(Color.decode("#1b1b1b"));
-		graphics.fillRoundRect(x, y, rowW, h, cornerRadius, cornerRadius);
-
-		int borderWidth = 1;
-
-		graphics.setColor(Color.decode("#0b0b0b"));
-		graphics.setStroke(new BasicStroke(borderWidth));
-		graphics.drawRoundRect(x - borderWidth / 2, y - borderWidth / 2,
-				rowW + borderWidth / 2, h + borderWidth / 2, cornerRadius, cornerRadius);
-
-		renderLedgerEntries(ledgerEntries, x, y, rowW, rowH, sectionPadding, graphics);
+		addCheckEntries(ledgerEntries);
+		return ledgerEntries;
 	}
 
-	private LedgerEntry createTitleEntry(boolean isSessionStats)
+	//the selection is sorted by value, so gains then losses keeps them sorted within each
+	private List<LedgerEntry> createProfitLossEntries(AnalyticsFrame frame, boolean isSessionStats)
 	{
-		LedgerEntry titleEntry = new LedgerEntry(isSessionStats ? "Active Session Summary" : "Active Trip Summary", Color.WHITE, "", Color.WHITE, false);
-		titleEntry.addGapAfter = true;
-		titleEntry.center = true;
-		return titleEntry;
-	}
+		List<LedgerItem> ledger = isSessionStats ? frame.getSessionLedger() : frame.getTripLedger();
+		LedgerSelection selection = LedgerSelection.select(ledger, config.maxLedgerItems());
+		List<LedgerItem> items = selection.getItems();
 
-	private LedgerEntry createEmptyEntry()
-	{
-		LedgerEntry emptyEntry = new LedgerEntry("Ledger items will appear here.", Color.WHITE, "", Color.WHITE, false);
-		return emptyEntry;
-	}
+		List<LedgerEntry> ledgerEntries = new ArrayList<>(items.size() + 7);
+		ledgerEntries.add(createTitleEntry(isSessionStats));
 
-	private void renderProfitLossLedger(Graphics2D graphics)
-	{
-		FontMetrics fontMetrics = graphics.getFontMetrics();
-
-		List<LedgerItem> ledger = null;
-		if (config.inventoryOverlayDisplayMode().sessionData)
+		List<LedgerItem> gainsThenLosses = new ArrayList<>(items.size());
+		for (LedgerItem item : items)
 		{
-			SessionStats stats = plugin.getSessionManager().getActiveSessionStats();
-			ledger = GPPerHourPlugin.getProfitLossLedger(stats.getInitialQtys(), stats.getQtys());
+			if (item.getQty() > 0)
+				gainsThenLosses.add(item);
 		}
-		else
+		for (LedgerItem item : items)
 		{
-			ledger = GPPerHourPlugin.getProfitLossLedger(plugin.getRunData().initialItemQtys, plugin.getRunData().itemQtys);
+			if (item.getQty() < 0)
+				gainsThenLosses.add(item);
 		}
 
-		List<LedgerItem> gain = ledger.stream().filter(item -> item.getQty() > 0)
-				.collect(Collectors.toList());
-
-		List<LedgerItem> loss = ledger.stream().filter(item -> item.getQty() < 0)
-				.collect(Collectors.toList());
-
-		gain = gain.stream().sorted(Comparator.comparingLong(o -> -o.getCombinedValue())).collect(Collectors.toList());
-		loss = loss.stream().sorted(Comparator.comparingLong(o -> -o.getCombinedValue())).collect(Collectors.toList());
-
-		ledger = new LinkedList<>();
-		ledger.addAll(gain);
-		ledger.addAll(loss);
+		long prevPrice = 0;
+		String prevDesc = "";
+		for (int i = 0; i < gainsThenLosses.size(); i++)
+		{
+			LedgerItem item = gainsThenLosses.get(i);
+			String desc = getDescription(item);
+			long price = item.getCombinedValue();
 
-		LinkedList<LedgerEntry> ledgerEntries = new LinkedList<>();
-		ledgerEntries.add(createTitleEntry(config.inventoryOverlayDisplayMode().sessionData));
+			boolean addGap = i > 0 && prevPrice >= 0 && price < 0 && !prevDesc.contains("Total");
+			prevPrice = price;
+			prevDesc = desc;
+			ledgerEntries.add(new LedgerEntry(desc, LEDGER_ITEM_COLOR, formatNumber(price), priceToColor(price), addGap));
+		}
 
-		if (ledger.isEmpty())
+		if (ledgerEntries.size() == 1)
 		{
 			ledgerEntries.add(createEmptyEntry());
 		}
 		else
 		{
-			String [] descriptions = ledger.stream().map(item -> {
-				String desc = item.getDescription();
-				if (item.getQty() != 0 && Math.abs(item.getQty()) != 1 && !item.getDescription().contains("Coins"))
-				{
-					desc = UI.formatQuantity(item.getQty(), true) + " " + desc;
-				}
-				return desc;
-			}).toArray(String[]::new);
-			Long [] prices = ledger.stream().map(item -> item.getCombinedValue()).toArray(Long[]::new);
-	
-			if (descriptions.length == prices.length)
-			{
-				String prevDesc = "";
-				for (int i = 0; i < descriptions.length; i++)
-				{
-					Color leftColor = Color.decode("#FFF7E3");
-					Color rightColor = Color.WHITE;
-					boolean addGap = false;
-					String desc = descriptions[i];
-	
-					if (i > 0 && prices[i - 1] >= 0 && prices[i] < 0 && !prevDesc.contains("Total"))
-					{
-						addGap = true;
-					}
-	
-					prevDesc = desc;
-	
-					long price = prices[i];
-					String formattedPrice = formatNumber(price);
-					rightColor = priceToColor(price);
-	
-					ledgerEntries.add(new LedgerEntry(desc, leftColor, formattedPrice, rightColor, addGap));
-				}
-			}
-	
-			long totalGain = gain.stream().mapToLong(item ->  item.getCombinedValue()).sum();
-			long totalLoss = loss.stream().mapToLong(item ->  item.getCombinedValue()).sum();
-			long netTotal = ledger.stream().mapToLong(item -> item.getCombinedValue()).sum();
+			addHiddenEntry(ledgerEntries, selection);
+			long totalGain = selection.getTotalGain();
+			long totalLoss = selection.getTotalLoss();
+			long netTotal = totalGain + totalLoss;
 			ledgerEntries.add(new LedgerEntry("Total Gain", Color.YELLOW, formatNumber(totalGain), priceToColor(totalGain), true));
 			ledgerEntries.add(new LedgerEntry("Total Loss", Color.YELLOW, formatNumber(totalLoss), priceToColor(totalLoss), false));
 			ledgerEntries.add(new LedgerEntry("Net Total", Color.ORANGE, formatNumber(netTotal), priceToColor(netTotal), false));
-	
-			long runTime = plugin.elapsedRunTime();
-			if (runTime != GPPerHourPlugin.NO_PROFIT_LOSS_TIME)
+
+			if (plugin.elapsedRunTime() != GPPerHourPlugin.NO_PROFIT_LOSS_TIME)
 			{
-				long gpPerHour = getGpPerHour(runTime, netTotal);
+				long gpPerHour = isSessionStats ? frame.getSessionGpPerHour() : frame.getTripGpPerHour();
 				String gpPerHourString = UI.formatGp(gpPerHour, config.showExactGp());
 				ledgerEntries.add(new LedgerEntry("GP/hr", Color.ORANGE, gpPerHourString, priceToColor(gpPerHour), false));
 			}
 		}
+		addCheckEntries(ledgerEntries);
+		return ledgerEntries;
+	}
 
-		boolean firstCharge = true;
-		for (String itemName : plugin.getChargeableItemsNeedingCheck())
+	private void addHiddenEntry(List<LedgerEntry> ledgerEntries, LedgerSelection selection)
+	{
+		if (selection.getHiddenCount() > 0)
 		{
-			ledgerEntries.add(new LedgerEntry("Check " + itemName + " to calibrate.", Color.RED, "", Color.WHITE, firstCharge));
-			firstCharge = false;
+			long hiddenValue = selection.getHiddenValue();
+			ledgerEntries.add(new LedgerEntry(selection.getHiddenDescription(), Color.LIGHT_GRAY,
+				formatNumber(hiddenValue), priceToColor(hiddenValue), true));
 		}
+	}
 
-		int maxRowW = 0;
-		int sectionPadding = 5;
-		int sectionPaddingTotal = 0;
-		for (LedgerEntry entry : ledgerEntries)
+	private static String getDescription(LedgerItem item)
+	{
+		String desc = item.getDescription();
+		if (item.getQty() != 0 && Math.abs(item.getQty()) != 1 && !item.getDescription().contains("Coins"))
 		{
-			int width = fontMetrics.stringWidth(entry.leftText) + fontMetrics.stringWidth(entry.rightText);
-			if (width > maxRowW)
-				maxRowW = width;
-			if (entry.addGapBefore)
-				sectionPaddingTotal += sectionPadding;
-			if (entry.addGapAfter)
-				sectionPaddingTotal += sectionPadding;
+			desc = UI.formatQuantity(item.getQty(), true) + " " + desc;
 		}
+		return desc;
+	}
 
-		net.runelite.api.Point mouse = client.getMouseCanvasPosition();
-		int mouseX = mouse.getX();
-		int mouseY = mouse.getY();
-
-		int rowW = maxRowW + 20 + HORIZONTAL_PADDING * 2;
-		int rowH = fontMetrics.getHeight();
-
-		int h = ledgerEntries.size() * rowH + TEXT_Y_OFFSET / 2 + sectionPaddingTotal + 2;
-		
-		int x = mouseX - rowW - 10;
-		int y = mouseY - h / 2;
-
-		int cornerRadius = 0;
-
-		graphics.setColor(Color.decode("#1b1b1b"));
-		graphics.fillRoundRect(x, y, rowW, h, cornerRadius, cornerRadius);
-
-		int borderWidth = 1;
+	private void addCheckEntries(List<LedgerEntry> ledgerEntries)
+	{
+		boolean firstCharge = true;
+		for (String itemName : plugin.getChargeableItemsNeedingCheck())
+		{
+			ledgerEntries.add(new LedgerEntry("Check " + itemName + " to calibrate.", Color.RED, "", Color.WHITE, firstCharge));
+			firstCharge = false;
+		}
+	}
 
-		graphics.setColor(Color.decode("#0b0b0b"));
-		graphics.setStroke(new BasicStroke(borderWidth));
-		graphics.drawRoundRect(x - borderWidth / 2, y - borderWidth / 2,
-				rowW + borderWidth / 2, h + borderWidth / 2, cornerRadius, cornerRadius);
+	private LedgerEntry createTitleEntry(boolean isSessionStats)
+	{
+		LedgerEntry titleEntry = new LedgerEntry(isSessionStats ? "Active Session Summary" : "Active Trip Summary", Color.WHITE, "", Color.WHITE, false);
+		titleEntry.addGapAfter = true;
+		titleEntry.center = true;
+		return titleEntry;
+	}
 
-		renderLedgerEntries(ledgerEntries, x, y, rowW, rowH, sectionPadding, graphics);
+	private LedgerEntry createEmptyEntry()
+	{
+		LedgerEntry emptyEntry = new LedgerEntry("Ledger items will appear here.", Color.WHITE, "", Color.WHITE, false);
+		return emptyEntry;
 	}
 
 	long getGpPerHour(long runTime, long total)
@@ -750,71 +707,103 @@ class ActiveTripOverlay extends Overlay
 		}
 	}
 
-	private void renderLedgerEntries(LinkedList<LedgerEntry> ledgerEntries, int x, int y, int rowW, int rowH, int sectionPadding, Graphics2D graphics)
+	private String getFormattedRunTime()
 	{
-		FontMetrics fontMetrics = graphics.getFontMetrics();
-		int yPosition = TEXT_Y_OFFSET;
-		for (LedgerEntry ledgerEntry: ledgerEntries)
+		if (!config.showRunTime())
+			return null;
+
+		long runTime = plugin.elapsedRunTime();
+
+		if (runTime == GPPerHourPlugin.NO_PROFIT_LOSS_TIME)
 		{
-			if (ledgerEntry.addGapBefore)
-				yPosition += sectionPadding;
+			return null;
+		}
+
+		return UI.formatTime(runTime);
+	}
+
+	//The hover ledger drawn into an image, with the border one pixel outside width x height
+	private static class LedgerTooltip
+	{
+		private static final int SECTION_PADDING = 5;
+		private static final Color BACKGROUND_COLOR = Color.decode("#1b1b1b");
+		private static final Color BORDER_COLOR = Color.decode("#0b0b0b");
+		private static final BasicStroke BORDER_STROKE = new BasicStroke(1);
 
-			//only renders left text
-			if (ledgerEntry.center)
+		private final BufferedImage image;
+		final int width;
+		final int height;
+
+		LedgerTooltip(List<LedgerEntry> ledgerEntries, Graphics2D target)
+		{
+			FontMetrics fontMetrics = target.getFontMetrics();
+			int maxRowW = 0;
+			int sectionPaddingTotal = 0;
+			for (LedgerEntry entry : ledgerEntries)
 			{
-				String leftText = ledgerEntry.leftText;
-				int textW = fontMetrics.stringWidth(leftText);
-				int textX = x + rowW/2 - textW/2;
-				int textY = y + yPosition;
-
-				TextComponent textComponent = new TextComponent();
-				textComponent.setColor(ledgerEntry.leftColor);
-				textComponent.setText(leftText);
-				textComponent.setPosition(new Point(textX, textY));
-				textComponent.render(graphics);
-			}
-			else
-			{
-				int textX = x + HORIZONTAL_PADDING;
-				int textY = y + yPosition;
-	
-				TextComponent textComponent = new TextComponent();
-				textComponent.setColor(ledgerEntry.leftColor);
-				textComponent.setText(ledgerEntry.leftText);
-				textComponent.setPosition(new Point(textX, textY));
-				textComponent.render(graphics);
-				
-				String rightText = ledgerEntry.rightText;
-				int textW = fontMetrics.stringWidth(rightText);
-				textX = x + rowW - HORIZONTAL_PADDING - textW;
-	
-				textComponent = new TextComponent();
-				textComponent.setColor(ledgerEntry.rightColor);
-				textComponent.setText(rightText);
-				textComponent.setPosition(new Point(textX, textY));
-				textComponent.render(graphics);
+				int rowWidth = fontMetrics.stringWidth(entry.leftText) + fontMetrics.stringWidth(entry.rightText);
+				if (rowWidth > maxRowW)
+					maxRowW = rowWidth;
+				if (entry.addGapBefore)
+					sectionPaddingTotal += SECTION_PADDING;
+				if (entry.addGapAfter)
+					sectionPaddingTotal += SECTION_PADDING;
 			}
+			int rowH = fontMetrics.getHeight();
+			width = maxRowW + 20 + HORIZONTAL_PADDING * 2;
+			height = ledgerEntries.size() * rowH + TEXT_Y_OFFSET / 2 + sectionPaddingTotal + 2;
 
+			image = new BufferedImage(width + 1, height + 1, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D graphics = image.createGraphics();
+			graphics.setRenderingHints(target.getRenderingHints());
+			graphics.setFont(target.getFont());
 
-			yPosition += rowH;
+			graphics.setColor(BACKGROUND_COLOR);
+			graphics.fillRect(0, 0, width, height);
 
-			if (ledgerEntry.addGapAfter)
-				yPosition += sectionPadding;
-		}
-	}
+			graphics.setColor(BORDER_COLOR);
+			graphics.setStroke(BORDER_STROKE);
+			graphics.drawRect(0, 0, width, height);
 
-	private String getFormattedRunTime()
-	{
-		if (!config.showRunTime())
-			return null;
+			int yPosition = TEXT_Y_OFFSET;
+			for (LedgerEntry entry : ledgerEntries)
+			{
+				if (entry.addGapBefore)
+					yPosition += SECTION_PADDING;
 
-		long runTime = plugin.elapsedRunTime();
+				//only renders left text
+				if (entry.center)
+				{
+					int textW = fontMetrics.stringWidth(entry.leftText);
+					drawText(graphics, entry.leftText, entry.leftColor, width / 2 - textW / 2, yPosition);
+				}
+				else
+				{
+					drawText(graphics, entry.leftText, entry.leftColor, HORIZONTAL_PADDING, yPosition);
+					int textW = fontMetrics.stringWidth(entry.rightText);
+					drawText(graphics, entry.rightText, entry.rightColor, width - HORIZONTAL_PADDING - textW, yPosition);
+				}
 
-		if (runTime == GPPerHourPlugin.NO_PROFIT_LOSS_TIME)
+				yPosition += rowH;
+
+				if (entry.addGapAfter)
+					yPosition += SECTION_PADDING;
+			}
+			graphics.dispose();
+		}
+
+		private static void drawText(Graphics2D graphics, String text, Color color, int x, int y)
 		{
-			return null;
+			TextComponent textComponent = new TextComponent();
+			textComponent.setColor(color);
+			textComponent.setText(text);
+			textComponent.setPosition(new Point(x, y));
+			textComponent.render(graphics);
 		}
 
-		return UI.formatTime(runTime);
+		void render(Graphics2D graphics, int x, int y)
+		{
+			graphics.drawImage(image, x, y, null);
+		}
 	}
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+//Everything the overlay and panels show, built by the AnalyticsWorker from one tick's snapshot.
+//Never modified once published, readers on any thread can hold on to it for as long as they need.
+//Ledgers are in item id order, see LedgerSelection for picking the rows to show.
+@Getter
+class AnalyticsFrame
+{
+	static final AnalyticsFrame EMPTY = new AnalyticsFrame(Collections.emptyList(), 0, 0, 0,
+		Collections.emptyList(), Collections.emptyMap(), null, Collections.emptyList(), 0, Collections.emptyMap(), 0, 0);
+
+	//the current trip
+	private final List<LedgerItem> tripLedger;
+	private final long tripGains;
+	private final long tripLosses;
+	private final long tripGpPerHour;
+
+	//trips of the session history by start time, and their ledgers by identifier
+	private final List<TripData> trips;
+	private final Map<String, List<LedgerItem>> tripLedgers;
+
+	//null if there's no active session
+	private final SessionStats sessionStats;
+	private final List<LedgerItem> sessionLedger;
+	private final long sessionGpPerHour;
+
+	//ledgers of the saved sessions
+	private final Map<SessionStats, List<LedgerItem>> historyLedgers;
+
+	//only change when something the active session or session history panel shows does
+	private final long activeSessionVersion;
+	private final long historyVersion;
+
+	AnalyticsFrame(List<LedgerItem> tripLedger, long tripGains, long tripLosses, long tripGpPerHour,
+		List<TripData> trips, Map<String, List<LedgerItem>> tripLedgers,
+		SessionStats sessionStats, List<LedgerItem> sessionLedger, long sessionGpPerHour,
+		Map<SessionStats, List<LedgerItem>> historyLedgers, long activeSessionVersion, long historyVersion)
+	{
+		this.tripLedger = tripLedger;
+		this.tripGains = tripGains;
+		this.tripLosses = tripLosses;
+		this.tripGpPerHour = tripGpPerHour;
+		this.trips = trips;
+		this.tripLedgers = tripLedgers;
+		this.sessionStats = sessionStats;
+		this.sessionLedger = sessionLedger;
+		this.sessionGpPerHour = sessionGpPerHour;
+		this.historyLedgers = historyLedgers;
+		this.activeSessionVersion = activeSessionVersion;
+		this.historyVersion = historyVersion;
+	}
+
+	long getTripNetTotal()
+	{
+		return tripGains + tripLosses;
+	}
+
+	//empty until the worker has valued the trip
+	List<LedgerItem> getTripLedger(String identifier)
+	{
+		return tripLedgers.getOrDefault(identifier, Collections.emptyList());
+	}
+
+	//empty until the worker has valued the session
+	List<LedgerItem> getHistoryLedger(SessionStats sessionStats)
+	{
+		return historyLedgers.getOrDefault(sessionStats, Collections.emptyList());
+	}
+}
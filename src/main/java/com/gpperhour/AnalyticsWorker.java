@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+//Builds ledgers, totals and GP/hr off the client thread. The client thread only hands over a Snapshot once per tick,
+//the worker builds the next frame from it and then swaps it in as the published one, so readers always get the
+//most recent finished frame and never one that's still being built. Frames aren't recycled since the swing thread
+//can still be drawing the previous one, unchanged ledgers are carried over instead.
+@Slf4j
+class AnalyticsWorker
+{
+	//What the client thread hands over. The quantity maps are never modified once they're set on a trip
+	//(see GPPerHourPlugin.updateValuation) and price tables are immutable, so references are enough.
+	@Getter
+	static class Snapshot
+	{
+		private final ItemQtyMap tripInitialQtys;
+		private final ItemQtyMap tripQtys;
+		private final PriceTable tripPrices;
+		private final long tripRuntime;
+		private final PriceTable prices;
+		//the active session panel is showing and should be redrawn with the frame
+		private final boolean updateActiveSession;
+		//saved sessions, only set when they changed
+		private final List<SessionStats> history;
+		//hash of what else the active session panel shows (config, session start/end, items needing a check)
+		private final int panelState;
+
+		Snapshot(TripData runData, long tripRuntime, PriceTable prices, boolean updateActiveSession, List<SessionStats> history,
+			int panelState)
+		{
+			this.tripInitialQtys = runData == null ? null : runData.initialItemQtys;
+			this.tripQtys = runData == null ? null : runData.itemQtys;
+			this.tripPrices = runData == null || runData.priceTable == null ? prices : runData.priceTable;
+			this.tripRuntime = tripRuntime;
+			this.prices = prices;
+			this.updateActiveSession = updateActiveSession;
+			this.history = history;
+			this.panelState = panelState;
+		}
+
+		private Snapshot(Snapshot newer, Snapshot older)
+		{
+			this.tripInitialQtys = newer.tripInitialQtys;
+			this.tripQtys = newer.tripQtys;
+			this.tripPrices = newer.tripPrices;
+			this.tripRuntime = newer.tripRuntime;
+			this.prices = newer.prices;
+			this.updateActiveSession = newer.updateActiveSession || older.updateActiveSession;
+			this.history = newer.history != null ? newer.history : older.history;
+			this.panelState = newer.panelState;
+		}
+	}
+
+	//a ledger and what it was built from, compared by reference
+	private static class CachedLedger
+	{
+		ItemQtyMap initialQtys;
+		ItemQtyMap qtys;
+		PriceTable prices;
+		List<LedgerItem> ledger;
+
+		boolean isBuiltFrom(ItemQtyMap initialQtys, ItemQtyMap qtys, PriceTable prices)
+		{
+			return this.initialQtys == initialQtys && this.qtys == qtys && this.prices == prices;
+		}
+	}
+
+	private final SessionManager sessionManager;
+	//called on the worker thread after a frame is published
+	private final BiConsumer<Snapshot, AnalyticsFrame> onFramePublished;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+	{
+		Thread thread = new Thread(runnable, "gpperhour-analytics");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	//only the newest snapshot waits, one that comes in while the worker is busy is merged into it
+	private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+	@Getter
+	private volatile AnalyticsFrame frame = AnalyticsFrame.EMPTY;
+
+	//worker thread only
+	private final Map<String, CachedLedger> tripLedgerCache = new HashMap<>();
+	private final CachedLedger sessionLedgerCache = new CachedLedger();
+	private List<SessionStats> history = Collections.emptyList();
+	private PriceTable historyPrices = null;
+	private Map<SessionStats, List<LedgerItem>> historyLedgers = Collections.emptyMap();
+	private Map<SessionStats, CachedLedger> historyLedgerCache = new IdentityHashMap<>();
+	//bumped when what the panels show changes, so unchanged frames don't redraw them
+	private long activeSessionVersion = 0;
+	private long activeSessionHash = 0;
+	private long historyVersion = 0;
+
+	AnalyticsWorker(SessionManager sessionManager, BiConsumer<Snapshot, AnalyticsFrame> onFramePublished)
+	{
+		this.sessionManager = sessionManager;
+		this.onFramePublished = onFramePublished;
+	}
+
+	void submit(Snapshot snapshot)
+	{
+		if (pending.getAndAccumulate(snapshot, (older, newer) -> older == null ? newer : new Snapshot(newer, older)) == null)
+		{
+			executor.execute(this::processPending);
+		}
+	}
+
+	void shutDown()
+	{
+		executor.shutdownNow();
+	}
+
+	private void processPending()
+	{
+		Snapshot snapshot = pending.getAndSet(null);
+		if (snapshot == null)
+		{
+			return;
+		}
+		long timerStart = PerfTimers.start();
+		AnalyticsFrame builtFrame;
+		try
+		{
+			builtFrame = buildFrame(snapshot);
+			frame = builtFrame;
+		}
+		catch (RuntimeException e)
+		{
+			//keep showing the last good frame
+			log.error("Failed to build analytics frame", e);
+			return;
+		}
+		finally
+		{
+			PerfTimers.stop(PerfTimers.Timer.ANALYTICS_FRAME, timerStart);
+		}
+		onFramePublished.accept(snapshot, builtFrame);
+	}
+
+	private AnalyticsFrame buildFrame(Snapshot snapshot)
+	{
+		List<LedgerItem> tripLedger = Collections.emptyList();
+		long tripGains = 0;
+		long tripLosses = 0;
+		long tripGpPerHour = 0;
+		if (snapshot.tripQtys != null)
+		{
+			ProfitLossLedger ledger = GPPerHourPlugin.buildProfitLossLedger(snapshot.tripInitialQtys, snapshot.tripQtys, snapshot.tripPrices);
+			tripGains = ledger.getTotalGain();
+			tripLosses = ledger.getTotalLoss();
+			tripLedger = Collections.unmodifiableList(ledger.toLedgerItems());
+			if (snapshot.tripRuntime != GPPerHourPlugin.NO_PROFIT_LOSS_TIME)
+			{
+				tripGpPerHour = UI.getGpPerHour(snapshot.tripRuntime, tripGains + tripLosses);
+			}
+		}
+
+		List<TripData> trips = sessionManager.getSortedTrips();
+		Map<String, List<LedgerItem>> tripLedgers = new HashMap<>();
+		for (TripData trip : trips)
+		{
+			tripLedgers.put(trip.identifier, getTripLedger(trip, snapshot.prices));
+		}
+		tripLedgerCache.keySet().retainAll(tripLedgers.keySet());
+
+		SessionStats sessionStats = sessionManager.getActiveSessionStats();
+		List<LedgerItem> sessionLedger = Collections.emptyList();
+		long sessionGpPerHour = 0;
+		if (sessionStats != null)
+		{
+			sessionLedger = getLedger(sessionLedgerCache, sessionStats.getInitialQtys(), sessionStats.getQtys(), snapshot.prices);
+			sessionGpPerHour = UI.getGpPerHour(sessionStats.getSessionRuntime(), sessionStats.getNetTotal());
+		}
+
+		if (updateHistoryLedgers(snapshot))
+		{
+			historyVersion++;
+		}
+
+		long hash = getActiveSessionHash(snapshot, trips, tripLedgers, sessionStats, sessionLedger);
+		if (hash != activeSessionHash)
+		{
+			activeSessionHash = hash;
+			activeSessionVersion++;
+		}
+
+		return new AnalyticsFrame(tripLedger, tripGains, tripLosses, tripGpPerHour,
+			Collections.unmodifiableList(trips), Collections.unmodifiableMap(tripLedgers),
+			sessionStats, sessionLedger, sessionGpPerHour, historyLedgers,
+			activeSessionVersion, historyVersion);
+	}
+
+	//Everything the active session panel shows. Ledgers are compared by reference since unchanged ones are carried over.
+	private static long getActiveSessionHash(Snapshot snapshot, List<TripData> trips, Map<String, List<LedgerItem>> tripLedgers,
+		SessionStats sessionStats, List<LedgerItem> sessionLedger)
+	{
+		long hash = snapshot.panelState;
+		for (TripData trip : trips)
+		{
+			hash = 31 * hash + trip.identifier.hashCode();
+			hash = 31 * hash + trip.runtime;
+			hash = 31 * hash + (trip.runEndTime == null ? 0 : trip.runEndTime);
+			hash = 31 * hash + (trip.isPaused ? 1 : 0);
+			hash = 31 * hash + System.identityHashCode(tripLedgers.get(trip.identifier));
+		}
+		if (sessionStats != null)
+		{
+			hash = 31 * hash + sessionStats.getSessionRuntime();
+			hash = 31 * hash + sessionStats.getTotalGain();
+			hash = 31 * hash + sessionStats.getTotalLoss();
+			hash = 31 * hash + sessionStats.getTripCount();
+			hash = 31 * hash + sessionStats.getAvgTripDuration();
+		}
+		hash = 31 * hash + System.identityHashCode(sessionLedger);
+		//trips show when they started as "x minutes ago"
+		hash = 31 * hash + System.currentTimeMillis() / 60000;
+		return hash;
+	}
+
+	private List<LedgerItem> getTripLedger(TripData trip, PriceTable currentPrices)
+	{
+		CachedLedger cached = tripLedgerCache.computeIfAbsent(trip.identifier, identifier -> new CachedLedger());
+		PriceTable tripPrices = trip.priceTable;
+		return getLedger(cached, trip.initialItemQtys, trip.itemQtys, tripPrices == null ? currentPrices : tripPrices);
+	}
+
+	private static List<LedgerItem> getLedger(CachedLedger cached, ItemQtyMap initialQtys, ItemQtyMap qtys, PriceTable prices)
+	{
+		if (!cached.isBuiltFrom(initialQtys, qtys, prices))
+		{
+			cached.initialQtys = initialQtys;
+			cached.qtys = qtys;
+			cached.prices = prices;
+			cached.ledger = Collections.unmodifiableList(
+				GPPerHourPlugin.buildProfitLossLedger(initialQtys, qtys, prices).toLedgerItems());
+		}
+		return cached.ledger;
+	}
+
+	//Saved sessions are revalued when their item maps or the prices of their items change. A new price table alone
+	//(every newly seen item makes one) doesn't rebuild them, nor redraw the history if none of them changed.
+	private boolean updateHistoryLedgers(Snapshot snapshot)
+	{
+		if (snapshot.history == null && historyPrices == snapshot.prices)
+		{
+			return false;
+		}
+		if (snapshot.history != null)
+		{
+			history = snapshot.history;
+		}
+		historyPrices = snapshot.prices;
+		boolean changed = snapshot.history != null;
+		Map<SessionStats, List<LedgerItem>> ledgers = new IdentityHashMap<>();
+		Map<SessionStats, CachedLedger> cache = new IdentityHashMap<>();
+		for (SessionStats stats : history)
+		{
+			//summaries get a ledger once their item maps are loaded
+			if (!stats.hasQtys())
+			{
+				continue;
+			}
+			CachedLedger cached = historyLedgerCache.get(stats);
+			if (cached == null)
+			{
+				cached = new CachedLedger();
+			}
+			List<LedgerItem> ledger = getHistoryLedger(cached, stats.getInitialQtys(), stats.getQtys(), historyPrices);
+			changed |= ledger != historyLedgers.get(stats);
+			ledgers.put(stats, ledger);
+			cache.put(stats, cached);
+		}
+		changed |= ledgers.size() != historyLedgers.size();
+		historyLedgerCache = cache;
+		historyLedgers = Collections.unmodifiableMap(ledgers);
+		return changed;
+	}
+
+	private static List<LedgerItem> getHistoryLedger(CachedLedger cached, ItemQtyMap initialQtys, ItemQtyMap qtys, PriceTable prices)
+	{
+		if (cached.ledger != null && cached.prices != prices && cached.initialQtys == initialQtys && cached.qtys == qtys
+			&& !pricesChanged(initialQtys, cached.prices, prices) && !pricesChanged(qtys, cached.prices, prices))
+		{
+			//still valid for the new table
+			cached.prices = prices;
+		}
+		return getLedger(cached, initialQtys, qtys, prices);
+	}
+
+	//whether any of the map's items is valued or named differently in the new table
+	private static boolean pricesChanged(ItemQtyMap qtys, PriceTable oldPrices, PriceTable newPrices)
+	{
+		if (qtys == null)
+		{
+			return false;
+		}
+		for (int i = 0; i < qtys.capacity(); ++i)
+		{
+			if (!qtys.isUsed(i))
+			{
+				continue;
+			}
+			int itemId = qtys.keyAt(i);
+			if (!Objects.equals(oldPrices.getPrice(itemId), newPrices.getPrice(itemId))
+				|| !Objects.equals(oldPrices.getName(itemId), newPrices.getName(itemId)))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
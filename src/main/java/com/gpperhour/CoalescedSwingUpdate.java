@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+//Runs a panel update on the swing thread with at most one of it queued at a time. Requests made while one is
+//queued collapse into it (so a busy EDT doesn't pile up refreshes), and a request for content the panel is already
+//showing is skipped entirely.
+class CoalescedSwingUpdate
+{
+	private final Runnable update;
+	private final AtomicBoolean queued = new AtomicBoolean(false);
+	private volatile long requestedVersion;
+	//swing thread only
+	private long shownVersion = -1;
+
+	CoalescedSwingUpdate(Runnable update)
+	{
+		this.update = update;
+	}
+
+	//any thread, version changes whenever the content does
+	void request(long version)
+	{
+		requestedVersion = version;
+		if (queued.compareAndSet(false, true))
+		{
+			SwingUtilities.invokeLater(this::run);
+		}
+	}
+
+	private void run()
+	{
+		//cleared before reading the version so a request that comes in now queues another run
+		queued.set(false);
+		long version = requestedVersion;
+		if (version == shownVersion)
+		{
+			return;
+		}
+		shownVersion = version;
+		update.run();
+	}
+}
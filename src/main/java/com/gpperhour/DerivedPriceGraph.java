@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+
+//Memoized prices of the items ValueRemapper derives from other items' prices (brimstone keys, hallowed sacks...).
+//Every price read while a derived price is being computed is recorded as one of its inputs, so refreshing an
+//input or a related config only throws away the derived prices that actually depend on it.
+//Like the rest of the price cache this is only used from the client thread.
+class DerivedPriceGraph
+{
+	//item id -> derived price, null for items whose price isn't derived
+	private final Map<Integer, Float> values = new HashMap<>();
+	//input item id -> derived item ids computed from it
+	private final Map<Integer, Set<Integer>> dependents = new HashMap<>();
+	//derived item id -> input item ids it read
+	private final Map<Integer, Set<Integer>> inputs = new HashMap<>();
+	//derived prices currently being computed, innermost first
+	private final Deque<Integer> computing = new ArrayDeque<>();
+	//nothing here is synchronized, changes from other threads are caught with -ea
+	private final BooleanSupplier isClientThread;
+
+	DerivedPriceGraph(BooleanSupplier isClientThread)
+	{
+		this.isClientThread = isClientThread;
+	}
+
+	//Returns the memoized price, computing it the first time. Null if the item's price isn't derived.
+	Float get(int itemId, IntFunction<Float> computePrice)
+	{
+		if (values.containsKey(itemId))
+		{
+			return values.get(itemId);
+		}
+		computing.push(itemId);
+		Float value;
+		try
+		{
+			value = computePrice.apply(itemId);
+		}
+		finally
+		{
+			computing.pop();
+		}
+		values.put(itemId, value);
+		return value;
+	}
+
+	//Called for every price lookup so it can be recorded as an input of the derived price being computed
+	void onPriceRead(int itemId)
+	{
+		Integer derivedItemId = computing.peek();
+		if (derivedItemId == null || derivedItemId == itemId)
+		{
+			return;
+		}
+		dependents.computeIfAbsent(itemId, k -> new HashSet<>()).add(derivedItemId);
+		inputs.computeIfAbsent(derivedItemId, k -> new HashSet<>()).add(itemId);
+	}
+
+	//Forgets the item's memoized price and every derived price computed from it, directly or through
+	//other derived prices. Returns all of those item ids, starting with the item itself.
+	List<Integer> invalidate(int itemId)
+	{
+		assert isClientThread.getAsBoolean() : "derived prices invalidated off the client thread";
+		List<Integer> invalidated = new ArrayList<>();
+		Set<Integer> visited = new HashSet<>();
+		Deque<Integer> pending = new ArrayDeque<>();
+		pending.push(itemId);
+		while (!pending.isEmpty())
+		{
+			int staleItemId = pending.pop();
+			if (!visited.add(staleItemId))
+			{
+				continue;
+			}
+			invalidated.add(staleItemId);
+			values.remove(staleItemId);
+			Set<Integer> staleDependents = dependents.get(staleItemId);
+			if (staleDependents != null)
+			{
+				pending.addAll(staleDependents);
+			}
+			//inputs are recorded again when it's recomputed, a config change can change which ones it reads
+			Set<Integer> staleInputs = inputs.remove(staleItemId);
+			if (staleInputs != null)
+			{
+				for (int input : staleInputs)
+				{
+					Set<Integer> inputDependents = dependents.get(input);
+					if (inputDependents != null)
+					{
+						inputDependents.remove(staleItemId);
+					}
+				}
+			}
+		}
+		return invalidated;
+	}
+
+	void clear()
+	{
+		assert isClientThread.getAsBoolean() : "derived prices cleared off the client thread";
+		values.clear();
+		dependents.clear();
+		inputs.clear();
+	}
+}
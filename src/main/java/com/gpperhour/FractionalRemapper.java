@@ -24,9 +24,8 @@
  */
 package com.gpperhour;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 
@@ -45,37 +44,53 @@ public class FractionalRemapper
         final Float remappedQuantityMultiplier;
     }
 
-    private static final Map<Integer, RemapData> remapData;
+    private static final int NOT_REMAPPED = -1;
 
-    //avoid GC
-    private static final List<Integer> keySet = new LinkedList<>();
+    //The table below compiled into arrays indexed by item id, read only after class init so Remap
+    //can be called from any thread
+    private static final int[] remappedIds;
+    private static final float[] remappedQuantityMultipliers;
 
-    public static void Remap(Map<Integer, Float> qtyMap)
+    //Remaps in place without allocating. Removing an entry can shift a later entry back into the freed slot,
+    //so the same slot is checked again before moving on. A remapped id is never itself remapped (checked
+    //when the table is compiled) so entries added during the pass don't need to be looked at, and since
+    //every add follows a remove the map never resizes mid pass.
+    public static void Remap(ItemQtyMap qtyMap)
     {
-        keySet.clear();
-        for (Integer integer : qtyMap.keySet())
+        int slot = 0;
+        while (slot < qtyMap.capacity())
         {
-            keySet.add(integer);
-        }
-
-        for (Integer oldItemId : keySet)
-        {
-            if (remapData.containsKey(oldItemId))
+            if (qtyMap.isUsed(slot))
             {
-                RemapData data = remapData.get(oldItemId);
-                float originalQty = qtyMap.get(oldItemId);
-                float newQty = originalQty * data.remappedQuantityMultiplier;
+                int oldItemId = qtyMap.keyAt(slot);
+                int remappedId = getRemappedId(oldItemId);
+                if (remappedId != NOT_REMAPPED)
+                {
+                    float originalQty = qtyMap.remove(oldItemId);
+                    float newQty = originalQty * remappedQuantityMultipliers[oldItemId];
 
-                qtyMap.remove(oldItemId);
-                qtyMap.merge(data.remappedId, newQty, Float::sum);
+                    qtyMap.add(remappedId, newQty);
+                    continue;
+                }
             }
+            ++slot;
+        }
+    }
+
+    //Returns -1 if the item isn't remapped
+    static int getRemappedId(int itemId)
+    {
+        if (itemId < 0 || itemId >= remappedIds.length)
+        {
+            return NOT_REMAPPED;
         }
+        return remappedIds[itemId];
     }
 
     static
     {
         //Sourced from https://github.com/runelite/runelite/blob/master/runelite-client/src/main/java/net/runelite/client/plugins/itemcharges/ItemWithCharge.java
-        remapData = new HashMap<>();
+        Map<Integer, RemapData> remapData = new HashMap<>();
 
         /////////////////////// Rechargeable Jewelery ///////////////////////
         //These shouldn't really lose value as the charges deplete since the uncharged
@@ -617,5 +632,23 @@ public class FractionalRemapper
         remapData.put(11099, new RemapData(11095, 0.6f));
         remapData.put(11101, new RemapData(11095, 0.4f));
         remapData.put(11103, new RemapData(11095, 0.2f));
+
+        int maxItemId = 0;
+        for (int itemId : remapData.keySet())
+        {
+            maxItemId = Math.max(maxItemId, itemId);
+        }
+        remappedIds = new int[maxItemId + 1];
+        remappedQuantityMultipliers = new float[maxItemId + 1];
+        Arrays.fill(remappedIds, NOT_REMAPPED);
+        for (Map.Entry<Integer, RemapData> entry : remapData.entrySet())
+        {
+            if (remapData.containsKey(entry.getValue().remappedId))
+            {
+                throw new IllegalStateException("Remapped item " + entry.getKey() + " maps to an item that is also remapped");
+            }
+            remappedIds[entry.getKey()] = entry.getValue().remappedId;
+            remappedQuantityMultipliers[entry.getKey()] = entry.getValue().remappedQuantityMultiplier;
+        }
     }
 }
@@ -187,12 +187,37 @@ public interface GPPerHourConfig extends Config
 
 
 
+	@ConfigItem(
+			position = 25,
+			keyName = "maxLedgerItems",
+			name = "Max Ledger Items",
+			description = "The most items shown in the ledger on hover and the loot grids, the rest are combined into one entry. 0 shows every item.",
+			section =  sharedSettingSection
+	)
+	default int maxLedgerItems()
+	{
+		return 0;
+	}
+
+	public static final String itemImageCacheSizeKey = "itemImageCacheSize";
+	@ConfigItem(
+			position = 26,
+			keyName = itemImageCacheSizeKey,
+			name = "Item Image Cache (KB)",
+			description = "How much memory item images shown in the loot grids can use before the least recently used ones are dropped.",
+			section =  sharedSettingSection
+	)
+	default int itemImageCacheSize()
+	{
+		return 4096;
+	}
+
 	public static final String ignoredItemsKey = "ignoredItems";
 	@ConfigItem(
 			position = 30,
 			keyName = ignoredItemsKey,
 			name = "Ignored Items",
-			description = "Ignore these items in your inventory (applies after banking).",
+			description = "Ignore these items in your inventory (applies after banking). Comma separated item names, item ids or wildcards like *(4).",
 			section =  sharedSettingSection
 	)
 	default String ignoredItems() {
@@ -747,4 +772,39 @@ public interface GPPerHourConfig extends Config
 	{
 		return ValueRemapper.BrimstoneKeyOverride.AVERAGE_VALUE;
 	}
+
+
+
+	@ConfigSection(
+		name = "Developer",
+		description = "Debugging options, these slow the plugin down so leave them off unless you're tracking down a problem.",
+		position = 250,
+		closedByDefault = true
+	)
+	String developerSection = "developerSection";
+
+	@ConfigItem(
+			position = 5,
+			keyName = "verifyValuation",
+			name = "Verify Valuation",
+			description = "Recompute the whole inventory and equipment value every tick and log an error if it doesn't match the incremental value.",
+			section =  developerSection
+	)
+	default boolean verifyValuation()
+	{
+		return false;
+	}
+
+	public static final String enablePerfTimersKey = "enablePerfTimers";
+	@ConfigItem(
+			position = 10,
+			keyName = enablePerfTimersKey,
+			name = "Timing Overlay",
+			description = "Time the per tick work of the plugin and show p50/p99/max in an overlay. Type ::gpphtimings to dump them to a file in the .runelite/gpperhour folder.",
+			section =  developerSection
+	)
+	default boolean enablePerfTimers()
+	{
+		return false;
+	}
 }
@@ -27,19 +27,25 @@ package com.gpperhour;
 import static net.runelite.api.MenuAction.RUNELITE_OVERLAY_CONFIG;
 
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.IntFunction;
 
 import javax.inject.Inject;
-import javax.swing.SwingUtilities;
 
 import com.gpperhour.GoldDropManager.GoldDropDisplayMode;
 import com.gpperhour.itemcharges.ChargedItemManager;
@@ -58,18 +64,21 @@ import net.runelite.api.EnumComposition;
 import net.runelite.api.EnumID;
 import net.runelite.api.GameState;
 import net.runelite.api.Item;
-import net.runelite.api.ItemComposition;
 import net.runelite.api.ItemContainer;
 import net.runelite.api.MenuAction;
 import net.runelite.api.events.AnimationChanged;
+import net.runelite.api.events.CommandExecuted;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemContainerChanged;
 import net.runelite.api.events.MenuOptionClicked;
 import net.runelite.api.events.ScriptPreFired;
+import net.runelite.api.events.VarbitChanged;
 import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.gameval.*;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetUtil;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.chat.QueuedMessage;
@@ -114,6 +123,7 @@ public class GPPerHourPlugin extends Plugin
 		"GP Per Hour " + plugin_version + ":<br>" +
 				"* Add support for the new gem pouch, satchel, tote, and sack.";
 	static final int COINS = ItemID.COINS;
+	static final String PERF_TIMERS_COMMAND = "gpphtimings";
 	static final int NO_PROFIT_LOSS_TIME = -1;
 	static final int RUNEPOUCH_ITEM_ID = ItemID.BH_RUNE_POUCH;
 	static final int DIVINE_RUNEPOUCH_ITEM_ID = ItemID.DIVINE_RUNE_POUCH;
@@ -123,16 +133,28 @@ public class GPPerHourPlugin extends Plugin
 
     // static item prices so that when ItemManager updates, the Profit / Loss value doesn't all of a sudden change
     // this is cleared and repopulated at the start of each new run (after bank) and whenever new items hit the inventory
-    private static final Map<Integer, Float> itemPrices = new HashMap<>();
-	//so we can do name lookups on the swing thread
-	private static final Map<Integer, String> itemNames = new HashMap<>();
+	// only replaced on the client thread, any thread can read it (e.g. name lookups on the swing thread)
+	private static volatile PriceTable priceTable = PriceTable.EMPTY;
+	//the prices read instead of the table while refreshPrices or refreshPrice recompute them, published together when done
+	private static Map<Integer, Float> refreshedPrices = null;
+	//memoized ValueRemapper prices and what they were computed from
+	private final DerivedPriceGraph derivedPrices = new DerivedPriceGraph(() -> this.client.isClientThread());
 
 	@Inject
 	private ScheduledExecutorService executor;
+	private AnalyticsWorker analyticsWorker;
+	private TripPersister tripPersister;
+	private CoalescedSwingUpdate activeSessionUpdate;
+	private CoalescedSwingUpdate sessionHistoryUpdate;
+	//bumped on any change to the plugin's config, the panels format with it
+	private int configVersion = 0;
 
 	@Inject
 	private ActiveTripOverlay tripOverlay;
 
+	@Inject
+	private PerfTimersOverlay perfTimersOverlay;
+
 	@Inject
 	private WeaponChargesManager weaponChargesManager;
 
@@ -155,6 +177,9 @@ public class GPPerHourPlugin extends Plugin
 	@Inject
 	private ItemManager itemManager;
 
+	@Inject
+	private ItemImageCache itemImageCache;
+
 	@Inject
 	private LootingBagManager lootingBagManager;
 	
@@ -202,10 +227,20 @@ public class GPPerHourPlugin extends Plugin
 	
     private BufferedImage icon;
     private NavigationButton navButton;
-	private final Map<Integer, Float> inventoryQtyMap = new HashMap<>();
-	private final Map<Integer, Float> equipmentQtyMap = new HashMap<>();
-	private final Map<Integer, Float> rewardsQtyMap = new HashMap<>();
-	private final HashSet<String> ignoredItems = new HashSet<>();
+	private final ItemQtyMap inventoryQtyMap = new ItemQtyMap();
+	private final ItemQtyMap equipmentQtyMap = new ItemQtyMap();
+	private final ItemQtyMap rewardsQtyMap = new ItemQtyMap();
+	//incremental valuation, sources are only re-valued when an event says they changed
+	private boolean inventoryDirty = true;
+	private boolean equipmentDirty = true;
+	private boolean rewardsDirty = true;
+	private long inventoryTotal;
+	private long equipmentTotal;
+	private long rewardsTotal;
+	//trip whose itemQtys were last built from the sources
+	private TripData valuedRunData;
+	private IgnoredItems ignoredItems;
+	private ItemMetaCache itemMetaCache;
 	private int depositInteractionTick;
 	//if its been more than 30 ticks you probably cancelled your interaction
 	private static final int interactionTickThreshold = 30;
@@ -242,13 +277,24 @@ public class GPPerHourPlugin extends Plugin
 			overlayManager.add(tripOverlay);
 		if (config.goldDropsDisplayMode() == GoldDropDisplayMode.STATIC)
 			overlayManager.add(goldDropManager);
+		refreshPerfTimers();
 
 		eventBus.register(lootingBagManager);
 		eventBus.register(weaponChargesManager);
 		eventBus.register(chargedItemManager);
+		lootingBagManager.setOnContentsChanged(() -> inventoryDirty = true);
+		weaponChargesManager.setOnChargesChanged(this::markChargesDirty);
+		chargedItemManager.setOnChargesChanged(this::markChargesDirty);
 		weaponChargesManager.startUp();
 		
-		sessionManager = new SessionManager(this, config, executor, gson);
+		sessionManager = new SessionManager(this, config, executor, clientThread, gson);
+		tripPersister = new TripPersister(executor, (profileKey, data) ->
+			configManager.setConfiguration(GPPerHourConfig.GROUP, profileKey, "inventory_total_data", data));
+		analyticsWorker = new AnalyticsWorker(sessionManager, this::onAnalyticsFramePublished);
+		activeSessionUpdate = new CoalescedSwingUpdate(() -> activeSessionPanel.updateTrips());
+		sessionHistoryUpdate = new CoalescedSwingUpdate(() -> sessionHistoryPanel.updateSessions());
+		ignoredItems = new IgnoredItems(itemManager);
+		itemMetaCache = new ItemMetaCache(itemManager, weaponChargesManager, ignoredItems, client::isClientThread);
 		buildSidePanel();
 		updatePanels();
 		refreshIgnoredItems();
@@ -267,14 +313,19 @@ public class GPPerHourPlugin extends Plugin
 	{
 		overlayManager.remove(tripOverlay);
 		overlayManager.remove(goldDropManager);
+		overlayManager.remove(perfTimersOverlay);
+		PerfTimers.setEnabled(false);
 		eventBus.unregister(lootingBagManager);
 		eventBus.unregister(weaponChargesManager);
 		eventBus.unregister(chargedItemManager);
 		weaponChargesManager.shutDown();
+		analyticsWorker.shutDown();
+		itemImageCache.clear();
+		sessionManager.shutDown();
 		clientToolbar.removeNavigation(navButton);
 		if (this.currentProfileKey != null)
 		{
-			writeSavedData(this.currentProfileKey);
+			flushSavedData(this.currentProfileKey);
 		}
 	}
 
@@ -306,11 +357,7 @@ public class GPPerHourPlugin extends Plugin
 		String currentVersion = configManager.getConfiguration(GPPerHourConfig.GROUP, GPPerHourConfig.version);
 		if (currentVersion == null || !currentVersion.equals(plugin_version)) {
 			configManager.setConfiguration(GPPerHourConfig.GROUP, GPPerHourConfig.version, plugin_version);
-			chat_messages.queue(QueuedMessage.builder()
-				.type(ChatMessageType.CONSOLE)
-				.runeLiteFormattedMessage(plugin_message)
-				.build()
-			);
+			sendConsoleMessage(plugin_message);
 		}
 	}
 
@@ -323,48 +370,77 @@ public class GPPerHourPlugin extends Plugin
 			//getting profile for first time
 			if (this.currentProfileKey == null || isStartingUp)
 			{
-				loadData();
+				loadData(profileKey);
 			}
 			//profile switched
 			else if (!profileKey.equals(this.currentProfileKey))
 			{
-				writeSavedData(this.currentProfileKey);
-				loadData();
+				flushSavedData(this.currentProfileKey);
+				loadData(profileKey);
 			}
 		}
 		//lost profile somehow
 		else if (this.currentProfileKey != null)
 		{
-			writeSavedData(this.currentProfileKey);
+			flushSavedData(this.currentProfileKey);
 		}
 
 		this.currentProfileKey = profileKey;
 	}
 
-	private void loadData()
+	private void loadData(String profileKey)
 	{
 		lootingBagManager.loadConfigData();
 		chargedItemManager.loadConfigData();
-		sessionManager.reloadSessions();
+		sessionManager.reloadSessions(profileKey);
 		sessionManager.deleteAllTrips();
 		sessionManager.stopTracking();
 		runData = getSavedData();
 		sessionManager.startTracking();
+		//the journal has the trips of the session that weren't saved yet, it's replayed in the background
+		sessionManager.replayJournal(profileKey, replay -> clientThread.invoke(() -> onJournalReplayed(replay)));
 		previousTotalGp = null;
+		markValuationDirty();
+	}
+
+	private void onJournalReplayed(TripJournal.Replay replay)
+	{
+		for (TripData trip : replay.trips.values())
+		{
+			if (trip.initialItemQtys != null)
+			{
+				ensureNamesAndPricesLoaded(trip.initialItemQtys);
+			}
+			if (trip.itemQtys != null)
+			{
+				ensureNamesAndPricesLoaded(trip.itemQtys);
+			}
+		}
+		TripData activeTrip = sessionManager.recoverTrips(replay, runData);
+		if (activeTrip != runData)
+		{
+			runData = activeTrip != null ? activeTrip : createRunData();
+			sessionManager.startTracking();
+			previousTotalGp = null;
+			markValuationDirty();
+		}
+		sessionManager.recoverSessionRange(replay);
 	}
 
+	//Hands this tick's snapshot to the analytics worker, the panels are redrawn once it has published the frame.
 	void updatePanels()
 	{
-		if (gpPerHourPanel.isActive() && gpPerHourPanel.isShowingActiveSession())
+		boolean updateActiveSession = gpPerHourPanel.isActive() && gpPerHourPanel.isShowingActiveSession();
+		if (updateActiveSession)
 		{
-			SessionStats sessionStats = sessionManager.getActiveSessionStats();
+			SessionStats sessionStats = analyticsWorker.getFrame().getSessionStats();
 			//ensure we load these after a restart
 			if (sessionStats != null)
 			{
 				ensureSessionNameAndPriceLoaded(sessionStats);
 			}
-			SwingUtilities.invokeLater(() -> activeSessionPanel.updateTrips());
 		}
+		List<SessionStats> history = null;
 		if (gpPerHourPanel.isActive() && gpPerHourPanel.isShowingSessionHistory() && sessionManager.sessionHistoryDirty)
 		{
 			//ensure we load these after a restart
@@ -372,42 +448,97 @@ public class GPPerHourPlugin extends Plugin
 			{
 				ensureSessionNameAndPriceLoaded(sessionStats);
 			}
-			SwingUtilities.invokeLater(() -> sessionHistoryPanel.updateSessions());
+			history = new ArrayList<>(sessionManager.sessionHistory);
 			sessionManager.sessionHistoryDirty = false;
 		}
+		long tripRuntime = runData == null ? NO_PROFIT_LOSS_TIME : elapsedRunTime();
+		int panelState = Objects.hash(configVersion, chargeableItemsNeedingCheck,
+			sessionManager.getActiveSessionStartId(), sessionManager.getActiveSessionEndId());
+		analyticsWorker.submit(new AnalyticsWorker.Snapshot(runData, tripRuntime, priceTable, updateActiveSession, history, panelState));
+	}
+
+	//worker thread, the panels are only redrawn when what they show changed
+	private void onAnalyticsFramePublished(AnalyticsWorker.Snapshot snapshot, AnalyticsFrame frame)
+	{
+		if (snapshot.isUpdateActiveSession())
+		{
+			activeSessionUpdate.request(frame.getActiveSessionVersion());
+		}
+		if (snapshot.getHistory() != null)
+		{
+			sessionHistoryUpdate.request(frame.getHistoryVersion());
+		}
+	}
+
+	AnalyticsFrame getAnalyticsFrame()
+	{
+		return analyticsWorker.getFrame();
 	}
 
 	void ensureSessionNameAndPriceLoaded(SessionStats sessionStats)
 	{
-		for(Integer intialItemId : sessionStats.getInitialQtys().keySet())
+		if (!sessionStats.hasQtys())
 		{
-			ensureNameAndPriceLoaded(intialItemId);
+			return;
 		}
-		for(Integer itemId : sessionStats.getQtys().keySet())
+		ensureNamesAndPricesLoaded(sessionStats.getInitialQtys());
+		ensureNamesAndPricesLoaded(sessionStats.getQtys());
+	}
+
+	//a saved session can bring in a lot of new items at once, so they're added to the price table in one batch
+	private void ensureNamesAndPricesLoaded(ItemQtyMap qtyMap)
+	{
+		Map<Integer, Float> newPrices = null;
+		Map<Integer, String> newNames = null;
+		for (int i = 0; i < qtyMap.capacity(); ++i)
 		{
-			ensureNameAndPriceLoaded(itemId);
+			if (!qtyMap.isUsed(i))
+			{
+				continue;
+			}
+			int itemId = qtyMap.keyAt(i);
+			if (!priceTable.hasName(itemId))
+			{
+				if (newNames == null)
+				{
+					newNames = new HashMap<>();
+				}
+				newNames.put(itemId, itemMetaCache.get(itemId).name);
+			}
+			if (!priceTable.hasPrice(itemId))
+			{
+				if (newPrices == null)
+				{
+					newPrices = new HashMap<>();
+				}
+				newPrices.put(itemId, getPrice(itemId));
+			}
+		}
+		if (newPrices != null || newNames != null)
+		{
+			putItemPricesAndNames(newPrices == null ? Collections.emptyMap() : newPrices,
+				newNames == null ? Collections.emptyMap() : newNames);
 		}
 	}
 
-	void ensureNameAndPriceLoaded(Integer itemId)
+	void ensureNameAndPriceLoaded(int itemId)
 	{
-		if (!GPPerHourPlugin.itemNames.containsKey(itemId))
+		if (!priceTable.hasName(itemId))
 		{
-			ItemComposition composition = itemManager.getItemComposition(itemId);
-			itemNames.put(itemId, composition.getName());
+			putItemName(itemId, itemMetaCache.get(itemId).name);
 		}
-		if (!GPPerHourPlugin.itemPrices.containsKey(itemId))
+		if (!priceTable.hasPrice(itemId))
 		{
-			itemPrices.put(itemId, getPrice(itemId));
+			putItemPrice(itemId, getPrice(itemId));
 		}
 	}
 
     private void buildSidePanel()
     {
-        activeSessionPanel = new ActiveSessionPanel(this, config, itemManager, clientThread, sessionManager);
+        activeSessionPanel = new ActiveSessionPanel(this, config, itemImageCache, clientThread, sessionManager);
         activeSessionPanel.sidePanelInitializer();
 
-		sessionHistoryPanel = new SessionHistoryPanel(this, config, itemManager, clientThread, sessionManager);
+		sessionHistoryPanel = new SessionHistoryPanel(this, config, itemImageCache, clientThread, sessionManager);
 
 		gpPerHourPanel = new GPPerHourPanel(activeSessionPanel, sessionHistoryPanel);
 
@@ -428,14 +559,19 @@ public class GPPerHourPlugin extends Plugin
     {
 		if (runData == null)
 			return;
+		long timerStart = PerfTimers.start();
 		updatePluginState(false);
+		PerfTimers.stop(PerfTimers.Timer.UPDATE_PLUGIN_STATE, timerStart);
+		timerStart = PerfTimers.start();
 		updatePanels();
+		PerfTimers.stop(PerfTimers.Timer.UPDATE_PANELS, timerStart);
 		updateChargeableItemsNeedingCheck();
 		
 		if (this.state == RunState.RUN && !runData.isPaused)
 		{
 			runData.runtime +=  Constants.GAME_TICK_LENGTH;
 		}
+		sessionManager.checkpointTrip(runData);
 
 		checkTickProfit();
     }
@@ -485,6 +621,7 @@ public class GPPerHourPlugin extends Plugin
 	{
 		if (event.getGroup().equals(GPPerHourConfig.GROUP))
 		{
+			configVersion++;
 			if (event.getKey().equals(GPPerHourConfig.showTripOverlayKeyName))
 			{
 				if (config.showTripOverlay())
@@ -512,6 +649,10 @@ public class GPPerHourPlugin extends Plugin
 			{
 				sessionManager.refreshSessionTracking();
 			}
+			else if (event.getKey().equals(GPPerHourConfig.itemImageCacheSizeKey))
+			{
+				itemImageCache.trim();
+			}
 			else if (event.getKey().equals(GPPerHourConfig.sidePanelPositionKeyName))
 			{
 				clientToolbar.removeNavigation(navButton);
@@ -526,9 +667,18 @@ public class GPPerHourPlugin extends Plugin
 			{
 				refreshIgnoredItems();
 			}
+			else if (event.getKey().equals(GPPerHourConfig.enablePerfTimersKey))
+			{
+				refreshPerfTimers();
+			}
 			else if (event.getKey().equals(GPPerHourConfig.valueModeKey))
 			{
-				refreshPrices();
+				//the price table, derived prices and item cache are only changed on the client thread
+				clientThread.invoke(() ->
+				{
+					itemMetaCache.invalidate();
+					refreshPrices();
+				});
 			}
 			else if (event.getKey().equals(GPPerHourConfig.sessionLootGridMaxHeightKeyName))
 			{
@@ -537,68 +687,106 @@ public class GPPerHourPlugin extends Plugin
 					activeSessionPanel.resetSessionLootGrid();
 				}
 			}
-			else if (event.getKey().startsWith("tokkul"))
-			{
-				refreshPrice(ItemID.TZHAAR_TOKEN);
-			}
-			else if (event.getKey().startsWith("crystalShard"))
-			{
-				refreshPrice(ItemID.PRIF_CRYSTAL_SHARD);
-			}
-			else if (event.getKey().startsWith("crystalDust"))
-			{
-				refreshPrice(ItemID.PRIF_CRYSTAL_SHARD_CRUSHED);
-			}
-			else if (event.getKey().startsWith("mermaidsTear"))
-			{
-				refreshPrice(ItemID.FOSSIL_MERMAID_TEAR);
-			}
-			else if (event.getKey().startsWith("stardust"))
-			{
-				refreshPrice(ItemID.STAR_DUST);
-			}
-			else if (event.getKey().startsWith("unidentifiedMinerals"))
-			{
-				refreshPrice(ItemID.MGUILD_MINERALS);
-			}
-			else if (event.getKey().startsWith("goldenNugget"))
-			{
-				refreshPrice(ItemID.MOTHERLODE_NUGGET);
-			}
-			else if (event.getKey().startsWith("hallowedMark"))
+			else
 			{
-				refreshPrice(ItemID.HALLOWED_MARK);
+				int derivedItemId = ValueRemapper.getItemForConfigKey(event.getKey());
+				if (derivedItemId != -1)
+				{
+					refreshPrice(derivedItemId);
+				}
 			}
-			else if (event.getKey().startsWith("abyssalPearls"))
+		}
+	}
+
+	private void refreshPerfTimers()
+	{
+		PerfTimers.setEnabled(config.enablePerfTimers());
+		if (config.enablePerfTimers())
+			overlayManager.add(perfTimersOverlay);
+		else
+			overlayManager.remove(perfTimersOverlay);
+	}
+
+	@Subscribe
+	public void onCommandExecuted(CommandExecuted commandExecuted)
+	{
+		if (!commandExecuted.getCommand().equalsIgnoreCase(PERF_TIMERS_COMMAND))
+		{
+			return;
+		}
+		if (!PerfTimers.isEnabled())
+		{
+			sendConsoleMessage("GP Per Hour timings are disabled, enable the Timing Overlay in the Developer config section.");
+			return;
+		}
+		File file = new File(new File(RuneLite.RUNELITE_DIR, "gpperhour"), "timings-" + Instant.now().toEpochMilli() + ".txt");
+		executor.execute(() ->
+		{
+			try
 			{
-				refreshPrice(ItemID.ABYSSAL_PEARL);
+				PerfTimers.dump(file);
+				sendConsoleMessage("GP Per Hour timings written to " + file.getAbsolutePath());
 			}
-			else if (event.getKey().startsWith("brimstoneKey"))
+			catch (IOException e)
 			{
-				refreshPrice(ItemID.KONAR_KEY);
+				log.error("Failed to write timings to " + file, e);
 			}
-		}
+		});
 	}
 
-	private void refreshIgnoredItems()
+	private void sendConsoleMessage(String message)
 	{
-		ignoredItems.clear();
+		chat_messages.queue(QueuedMessage.builder()
+			.type(ChatMessageType.CONSOLE)
+			.runeLiteFormattedMessage(message)
+			.build()
+		);
+	}
 
-		String[] items = config.ignoredItems().split(",");
-		for (int i=0;i<items.length;++i)
+	//config changes come in on whichever thread set them, the ignored items and the item cache are client thread only
+	private void refreshIgnoredItems()
+	{
+		clientThread.invoke(() ->
 		{
-			ignoredItems.add(items[i].trim().toLowerCase());
-		}
+			ignoredItems.rebuild(config.ignoredItems());
+			itemMetaCache.invalidate();
+			markValuationDirty();
+		});
 	}
 
 	private void refreshPrice(int itemID)
 	{
 		clientThread.invoke(()->{
 
-			if (itemPrices.remove(itemID) != null)
+			//the item and every derived price computed from it, priced again in the same step so the ledgers
+			//don't fall back to the default price until each of them shows up in a container
+			List<Integer> invalidated = derivedPrices.invalidate(itemID);
+			PriceTable oldTable = priceTable;
+			PriceTable clearedTable = oldTable.withoutPrices(invalidated);
+			if (clearedTable == oldTable)
+			{
+				return;
+			}
+			Map<Integer, Float> newPrices = new HashMap<>();
+			refreshedPrices = clearedTable.getPrices();
+			try
 			{
-				getPrice(itemID);
+				for (int staleItemId : invalidated)
+				{
+					if (oldTable.hasPrice(staleItemId))
+					{
+						newPrices.put(staleItemId, getPrice(staleItemId));
+					}
+				}
 			}
+			finally
+			{
+				refreshedPrices = null;
+			}
+			priceTable = clearedTable.withPricesAndNames(newPrices, Collections.emptyMap());
+			//same as a full refresh, the completed trips and the session ledger value with the same table
+			sessionManager.onPricesRefreshed(priceTable);
+			markValuationDirty();
 		});
 	}
 
@@ -607,6 +795,32 @@ public class GPPerHourPlugin extends Plugin
 		return NavigationButton.builder().tooltip("GP Per Hour").icon(icon).priority(config.sidePanelPosition()).panel(gpPerHourPanel).build();
 	}
 
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event)
+	{
+		if (event.getContainerId() == InventoryID.INV)
+		{
+			inventoryDirty = true;
+		}
+		else if (event.getContainerId() == InventoryID.WORN)
+		{
+			equipmentDirty = true;
+		}
+	}
+
+	@Subscribe
+	public void onVarbitChanged(VarbitChanged event)
+	{
+		for (int i = 0; i < RUNEPOUCH_AMOUNT_VARBITS.length; i++)
+		{
+			if (event.getVarbitId() == RUNEPOUCH_AMOUNT_VARBITS[i] || event.getVarbitId() == RUNEPOUCH_RUNE_VARBITS[i])
+			{
+				inventoryDirty = true;
+				return;
+			}
+		}
+	}
+
 	@Subscribe
 	public void onWidgetLoaded(WidgetLoaded event)
 	{
@@ -616,10 +830,8 @@ public class GPPerHourPlugin extends Plugin
 			if (rewardsItemContainer != null)
 			{
 				refreshQtyMap(rewardsQtyMap, rewardsItemContainer);
-				for (int itemId: rewardsQtyMap.keySet())
-				{
-					runData.bankedItemQtys.merge(itemId, rewardsQtyMap.get(itemId), Float::sum);
-				}
+				runData.bankedItemQtys.addAll(rewardsQtyMap);
+				rewardsDirty = true;
 			}
 		}
 
@@ -683,10 +895,8 @@ public class GPPerHourPlugin extends Plugin
 				if (rewardsItemContainer != null)
 				{
 					refreshQtyMap(rewardsQtyMap, rewardsItemContainer);
-					for (int itemId: rewardsQtyMap.keySet())
-					{
-						runData.bankedItemQtys.merge(itemId, rewardsQtyMap.get(itemId), Float::sum);
-					}
+					runData.bankedItemQtys.addAll(rewardsQtyMap);
+					rewardsDirty = true;
 					updatePluginState(false);
 				}
 			}
@@ -770,8 +980,13 @@ public class GPPerHourPlugin extends Plugin
 			return;
 		inventoryWidget = client.getWidget(InterfaceID.Inventory.ITEMS);
 
-		inventoryItemContainer = client.getItemContainer(InventoryID.INV);
-		equipmentItemContainer = client.getItemContainer(InventoryID.WORN);
+		ItemContainer inventoryContainer = client.getItemContainer(InventoryID.INV);
+		ItemContainer equipmentContainer = client.getItemContainer(InventoryID.WORN);
+		//containers are normally reused and changes come through ItemContainerChanged, this catches login/logout
+		inventoryDirty |= inventoryContainer != inventoryItemContainer;
+		equipmentDirty |= equipmentContainer != equipmentItemContainer;
+		inventoryItemContainer = inventoryContainer;
+		equipmentItemContainer = equipmentContainer;
 
 		if (config.inventoryOverlayDisplayMode() == ActiveTripOverlay.InventoryOverlayDisplayMode.INVENTORY_TOTAL)
 		{
@@ -782,7 +997,9 @@ public class GPPerHourPlugin extends Plugin
 			setMode(TrackingMode.PROFIT_LOSS);
 		}
 
+		long timerStart = PerfTimers.start();
 		boolean isBank = runData.isFirstRun || forceBanking || isBanking();
+		PerfTimers.stop(PerfTimers.Timer.IS_BANKING, timerStart);
 
 		if (isBank)
 		{
@@ -795,10 +1012,11 @@ public class GPPerHourPlugin extends Plugin
 
 		boolean newRun = getPreviousState() == RunState.BANK && getState() == RunState.RUN;
 		
-		getRunData().itemQtys.clear();
-		long inventoryTotal = getInventoryTotal(false);
-		long equipmentTotal = getEquipmentTotal(false);
-		long rewardsTotal = getRewardsTotal();
+		updateValuation();
+		if (config.verifyValuation())
+		{
+			verifyValuation();
+		}
 
 		long totalGp = inventoryTotal;
 		if (getState() == RunState.RUN && getMode() == TrackingMode.PROFIT_LOSS)
@@ -847,12 +1065,16 @@ public class GPPerHourPlugin extends Plugin
 	// to handle same tick bank closing
 	void postNewRun()
 	{
-		runData.initialItemQtys.clear();
+		runData.initialItemQtys = new ItemQtyMap();
 		runData.bankedItemQtys.clear();
-		runData.itemQtys.clear();
 
-		getInventoryTotal(true);
-		getEquipmentTotal(true);
+		markValuationDirty();
+		updateValuation();
+		//banked items were just cleared so this is only the inventory and equipment
+		ItemQtyMap initialItemQtys = new ItemQtyMap();
+		initialItemQtys.copyFrom(runData.itemQtys);
+		runData.initialItemQtys = initialItemQtys;
+		runData.qtyVersion++;
 
 		if (mode == TrackingMode.PROFIT_LOSS)
 		{
@@ -880,37 +1102,132 @@ public class GPPerHourPlugin extends Plugin
 		initialGp = 0;
 	}
 
-	long getInventoryTotal(boolean isNewRun)
+	void markValuationDirty()
 	{
-		if (inventoryItemContainer == null)
+		inventoryDirty = true;
+		equipmentDirty = true;
+		rewardsDirty = true;
+	}
+
+	private void markChargesDirty()
+	{
+		//charged items can be in either container
+		inventoryDirty = true;
+		equipmentDirty = true;
+	}
+
+	//Only re-values the sources that changed since they were last valued, the rest keep their cached quantities and totals.
+	void updateValuation()
+	{
+		boolean sourcesChanged = false;
+		if (inventoryDirty)
 		{
-			return 0l;
+			refreshQtyMap(inventoryQtyMap, inventoryItemContainer);
+			inventoryTotal = valueQtyMap(inventoryQtyMap);
+			inventoryDirty = false;
+			sourcesChanged = true;
 		}
-
-		double totalGp = 0;
-		refreshQtyMap(inventoryQtyMap, inventoryItemContainer);
-		
-		for (Integer itemId: inventoryQtyMap.keySet())
+		if (equipmentDirty)
 		{
-			float gePrice = getPrice(itemId);
-			float itemQty = inventoryQtyMap.get(itemId);
-			totalGp += (itemQty * gePrice);
-			updateRunData(isNewRun, itemId, itemQty, gePrice);
+			refreshQtyMap(equipmentQtyMap, equipmentItemContainer);
+			equipmentTotal = valueQtyMap(equipmentQtyMap);
+			equipmentDirty = false;
+			sourcesChanged = true;
+		}
+		if (rewardsDirty || valuedRunData != runData)
+		{
+			rewardsTotal = valueQtyMap(runData.bankedItemQtys);
+			rewardsDirty = false;
+			sourcesChanged = true;
+		}
+		if (sourcesChanged)
+		{
+			//a new map every time, the analytics worker may still be reading the previous one
+			ItemQtyMap itemQtys = new ItemQtyMap(runData.itemQtys.size());
+			combineQtyMaps(itemQtys, inventoryQtyMap, equipmentQtyMap, runData.bankedItemQtys);
+			runData.itemQtys = itemQtys;
+			runData.priceTable = priceTable;
+			runData.qtyVersion++;
+			valuedRunData = runData;
 		}
+	}
 
-		return (long) totalGp;
+	//Same order the quantities have always been summed in so the floats come out identical
+	private static void combineQtyMaps(ItemQtyMap result, ItemQtyMap inventory, ItemQtyMap equipment, ItemQtyMap rewards)
+	{
+		result.clear();
+		result.addAll(inventory);
+		result.addAll(equipment);
+		result.addAll(rewards);
+	}
+
+	//avoid GC
+	private final ItemQtyMap verifyInventoryQtyMap = new ItemQtyMap();
+	private final ItemQtyMap verifyEquipmentQtyMap = new ItemQtyMap();
+	private final ItemQtyMap verifyItemQtys = new ItemQtyMap();
+
+	//Debug mode: recompute everything from scratch and check the incremental valuation matches it exactly
+	private void verifyValuation()
+	{
+		refreshQtyMap(verifyInventoryQtyMap, inventoryItemContainer);
+		refreshQtyMap(verifyEquipmentQtyMap, equipmentItemContainer);
+		long fullInventoryTotal = valueQtyMap(verifyInventoryQtyMap);
+		long fullEquipmentTotal = valueQtyMap(verifyEquipmentQtyMap);
+		long fullRewardsTotal = valueQtyMap(runData.bankedItemQtys);
+		combineQtyMaps(verifyItemQtys, verifyInventoryQtyMap, verifyEquipmentQtyMap, runData.bankedItemQtys);
+
+		if (fullInventoryTotal != inventoryTotal || fullEquipmentTotal != equipmentTotal || fullRewardsTotal != rewardsTotal
+			|| !verifyInventoryQtyMap.equals(inventoryQtyMap) || !verifyEquipmentQtyMap.equals(equipmentQtyMap)
+			|| !verifyItemQtys.equals(runData.itemQtys))
+		{
+			log.error("Incremental valuation doesn't match full recompute." +
+				" inventory: " + inventoryTotal + " vs " + fullInventoryTotal + " " + inventoryQtyMap + " vs " + verifyInventoryQtyMap +
+				", equipment: " + equipmentTotal + " vs " + fullEquipmentTotal + " " + equipmentQtyMap + " vs " + verifyEquipmentQtyMap +
+				", rewards: " + rewardsTotal + " vs " + fullRewardsTotal +
+				", trip: " + runData.itemQtys + " vs " + verifyItemQtys);
+			//don't keep showing the wrong values
+			markValuationDirty();
+			updateValuation();
+		}
 	}
 
-	long getRewardsTotal()
+	//Values a source and makes sure the prices and names of its items are cached for the ledgers.
+	//New items are added to the price table in one batch, it's copied on every update.
+	private long valueQtyMap(ItemQtyMap qtyMap)
 	{
 		double totalGp = 0;
+		Map<Integer, Float> newPrices = null;
+		Map<Integer, String> newNames = null;
 
-		for (Integer itemId: runData.bankedItemQtys.keySet())
+		for (int i = 0; i < qtyMap.capacity(); ++i)
 		{
+			if (!qtyMap.isUsed(i))
+				continue;
+			int itemId = qtyMap.keyAt(i);
 			float gePrice = getPrice(itemId);
-			float itemQty = runData.bankedItemQtys.get(itemId);
+			float itemQty = qtyMap.valueAt(i);
 			totalGp += (itemQty * gePrice);
-			updateRunData(false, itemId, itemQty, gePrice);
+			if (itemId != COINS && !priceTable.hasPrice(itemId))
+			{
+				if (newPrices == null)
+				{
+					newPrices = new HashMap<>();
+				}
+				newPrices.put(itemId, gePrice);
+			}
+			if (!priceTable.hasName(itemId))
+			{
+				if (newNames == null)
+				{
+					newNames = new HashMap<>();
+				}
+				newNames.put(itemId, itemMetaCache.get(itemId).name);
+			}
+		}
+		if (newPrices != null || newNames != null)
+		{
+			putItemPricesAndNames(newPrices == null ? Collections.emptyMap() : newPrices,
+				newNames == null ? Collections.emptyMap() : newNames);
 		}
 
 		return (long) totalGp;
@@ -921,79 +1238,67 @@ public class GPPerHourPlugin extends Plugin
 		this.eventBus.post(new OverlayMenuClicked(new OverlayMenuEntry(RUNELITE_OVERLAY_CONFIG, null, null), this.tripOverlay));
     }
 
+	//client thread only, like every other change to the price table
 	public void refreshPrices()
 	{
-		List<Integer> itemIds = new LinkedList<>(itemPrices.keySet());
-		itemPrices.clear();
-		for(Integer itemId : itemIds)
+		//recomputed into a separate map and published in one go so no thread sees a half refreshed table
+		refreshedPrices = new HashMap<>();
+		derivedPrices.clear();
+		try
 		{
-			itemPrices.put(itemId, getPrice(itemId));
+			for (Integer itemId : priceTable.getPricedItemIds())
+			{
+				refreshedPrices.put(itemId, getPrice(itemId));
+			}
+			priceTable = priceTable.withAllPrices(refreshedPrices);
 		}
-	}
-
-	private void addChargedWeaponComponents(Map<Integer, Float> qtyMap)
-	{
-		Map<Integer, Float> chargedWeaponComponents = getChargedWeaponComponentQtyMap(qtyMap.keySet());
-		for (int itemId: chargedWeaponComponents.keySet()) {
-			qtyMap.merge(itemId, chargedWeaponComponents.get(itemId), Float::sum);
+		finally
+		{
+			refreshedPrices = null;
 		}
+		sessionManager.onPricesRefreshed(priceTable);
+		markValuationDirty();
 	}
 
-	private void addChargedItemComponents(Map<Integer, Float> qtyMap)
+	private void addChargedWeaponComponents(ItemQtyMap qtyMap)
 	{
-		Map<Integer, Float> chargedItemComponents = getChargedItemQtyMap(qtyMap.keySet());
-		for (int itemId: chargedItemComponents.keySet()) {
-			qtyMap.merge(itemId, chargedItemComponents.get(itemId), Float::sum);
-		}
+		qtyMap.addAll(getChargedWeaponComponentQtyMap(qtyMap));
 	}
 
-	long getEquipmentTotal(boolean isNewRun)
+	private void addChargedItemComponents(ItemQtyMap qtyMap)
 	{
-		refreshQtyMap(equipmentQtyMap, equipmentItemContainer);
-
-		double eTotal = 0;
-		for (int itemId: equipmentQtyMap.keySet())
-		{
-			float qty = equipmentQtyMap.get(itemId);
-			float gePrice = getPrice(itemId);
-			eTotal += (qty * gePrice);
-			updateRunData(isNewRun, itemId, qty, gePrice);
-		}
-
-		return (long) eTotal;
+		qtyMap.addAll(getChargedItemQtyMap(qtyMap));
 	}
 
 	//avoid GC
-	private final Map<Integer, Float> chargedWeaponComponentQtyMap = new HashMap<>();
-	private Map<Integer, Float> getChargedWeaponComponentQtyMap(Set<Integer> itemIdsToCheck)
+	private final ItemQtyMap chargedWeaponComponentQtyMap = new ItemQtyMap();
+	private ItemQtyMap getChargedWeaponComponentQtyMap(ItemQtyMap itemsToCheck)
 	{
 		chargedWeaponComponentQtyMap.clear();
-		for (int itemId: itemIdsToCheck) {
-			if (weaponChargesManager.isChargeableWeapon(itemId) && weaponChargesManager.hasChargeData(itemId))
+		for (int i = 0; i < itemsToCheck.capacity(); ++i) {
+			if (!itemsToCheck.isUsed(i))
+				continue;
+			int itemId = itemsToCheck.keyAt(i);
+			if (itemMetaCache.get(itemId).kind == ItemMetaCache.Kind.CHARGED_WEAPON && weaponChargesManager.hasChargeData(itemId))
 			{
-				Map<Integer, Float> chargeComponents = weaponChargesManager.getChargeComponents(itemId);
-				for (Integer chargeComponentItemId: chargeComponents.keySet())
-				{
-					chargedWeaponComponentQtyMap.merge(chargeComponentItemId, chargeComponents.get(chargeComponentItemId), Float::sum);
-				}
+				chargedWeaponComponentQtyMap.addAll(weaponChargesManager.getChargeComponents(itemId));
 			}
 		}
 		return chargedWeaponComponentQtyMap;
 	}
 
 	//avoid GC
-	private final Map<Integer, Float> chargedItemQtyMap = new HashMap<>();
-	private Map<Integer, Float> getChargedItemQtyMap(Set<Integer> itemIdsToCheck)
+	private final ItemQtyMap chargedItemQtyMap = new ItemQtyMap();
+	private ItemQtyMap getChargedItemQtyMap(ItemQtyMap itemsToCheck)
 	{
 		chargedItemQtyMap.clear();
-		for (int itemId: itemIdsToCheck) {
+		for (int i = 0; i < itemsToCheck.capacity(); ++i) {
+			if (!itemsToCheck.isUsed(i))
+				continue;
+			int itemId = itemsToCheck.keyAt(i);
 			if (chargedItemManager.isChargeableItem(itemId) && chargedItemManager.hasChargeData(itemId))
 			{
-				Map<Integer, Float> itemContents = chargedItemManager.getItemQuantities(itemId);
-				for (Integer itemContentId: itemContents.keySet())
-				{
-					chargedItemQtyMap.merge(itemContentId, itemContents.get(itemContentId), Float::sum);
-				}
+				chargedItemQtyMap.addAll(chargedItemManager.getItemQuantities(itemId));
 			}
 		}
 		return chargedItemQtyMap;
@@ -1008,17 +1313,21 @@ public class GPPerHourPlugin extends Plugin
 			return new LinkedList<>();
 		}
 
-		refreshQtyMap(inventoryQtyMap, inventoryItemContainer);
-
-		for (Integer itemId: inventoryQtyMap.keySet())
+		if (inventoryDirty)
 		{
-			final ItemComposition itemComposition = itemManager.getItemComposition(itemId);
+			refreshQtyMap(inventoryQtyMap, inventoryItemContainer);
+		}
 
-			String itemName = itemComposition.getName();
+		for (int i = 0; i < inventoryQtyMap.capacity(); ++i)
+		{
+			if (!inventoryQtyMap.isUsed(i))
+				continue;
+			int itemId = inventoryQtyMap.keyAt(i);
+			String itemName = itemMetaCache.get(itemId).name;
 
-			Float qty = inventoryQtyMap.get(itemId);
+			float qty = inventoryQtyMap.valueAt(i);
 
-			Float price = itemPrices.get(itemId);
+			Float price = priceTable.getPrice(itemId);
 			if (price == null)
 			{
 				price = 1f;
@@ -1031,7 +1340,14 @@ public class GPPerHourPlugin extends Plugin
 	}
 
 
-	void refreshQtyMap(Map<Integer,Float> qtyMap, ItemContainer container)
+	void refreshQtyMap(ItemQtyMap qtyMap, ItemContainer container)
+	{
+		long timerStart = PerfTimers.start();
+		fillQtyMap(qtyMap, container);
+		PerfTimers.stop(PerfTimers.Timer.REFRESH_QTY_MAP, timerStart);
+	}
+
+	private void fillQtyMap(ItemQtyMap qtyMap, ItemContainer container)
 	{
 		qtyMap.clear();
 		if (container==null)
@@ -1046,25 +1362,38 @@ public class GPPerHourPlugin extends Plugin
 			if (itemId == -1)
 				continue;
 
-			ItemComposition itemComposition = itemManager.getItemComposition(itemId);
-			String itemName = itemComposition.getName();
-			boolean ignore = ignoredItems.contains(itemName.toLowerCase());
-			if (ignore) { continue; }
+			ItemMetaCache.ItemMeta meta = itemMetaCache.get(itemId);
+			if (meta.ignored) { continue; }
 				
-			qtyMap.merge(itemId, (float) containerItems[i].getQuantity(), Float::sum);
+			qtyMap.add(itemId, (float) containerItems[i].getQuantity());
 
-			if (itemId == RUNEPOUCH_ITEM_ID || itemId == DIVINE_RUNEPOUCH_ITEM_ID || itemId == RUNEPOUCH_TROUVER_ITEM_ID || itemId == DIVINE_RUNEPOUCH_TROUVER_ITEM_ID)
+			if (meta.kind == ItemMetaCache.Kind.RUNE_POUCH)
 			{
 				addRunepouchContents(qtyMap);
 			}
-			else if(itemId == ItemID.LOOTING_BAG || itemId == ItemID.LOOTING_BAG_OPEN)
+			else if (meta.kind == ItemMetaCache.Kind.LOOTING_BAG)
 			{
 				lootingBagManager.addLootingBagContents(qtyMap);
 			}
 		}
 		addChargedWeaponComponents(qtyMap);
 		addChargedItemComponents(qtyMap);
-		FractionalRemapper.Remap(qtyMap);
+		if (hasRemappedItems(qtyMap))
+		{
+			FractionalRemapper.Remap(qtyMap);
+		}
+	}
+
+	private boolean hasRemappedItems(ItemQtyMap qtyMap)
+	{
+		for (int i = 0; i < qtyMap.capacity(); ++i)
+		{
+			if (qtyMap.isUsed(i) && itemMetaCache.get(qtyMap.keyAt(i)).remappedId != -1)
+			{
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Getter
@@ -1076,100 +1405,62 @@ public class GPPerHourPlugin extends Plugin
 		if (this.state == RunState.BANK)
 			return;
 
-		checkQtyMapForCheck(inventoryQtyMap.keySet());
-		checkQtyMapForCheck(equipmentQtyMap.keySet());
+		checkQtyMapForCheck(inventoryQtyMap);
+		checkQtyMapForCheck(equipmentQtyMap);
 	}
 
-	void checkQtyMapForCheck(Set<Integer> keySet)
+	void checkQtyMapForCheck(ItemQtyMap qtyMap)
 	{
-		for (Integer itemId : keySet)
+		for (int i = 0; i < qtyMap.capacity(); ++i)
 		{
-			if ((itemId == ItemID.LOOTING_BAG || itemId == ItemID.LOOTING_BAG_OPEN) && lootingBagManager.needsCheck())
+			if (!qtyMap.isUsed(i))
+				continue;
+			int itemId = qtyMap.keyAt(i);
+			ItemMetaCache.ItemMeta meta = itemMetaCache.get(itemId);
+			if (meta.kind == ItemMetaCache.Kind.LOOTING_BAG && lootingBagManager.needsCheck())
 			{
 				chargeableItemsNeedingCheck.add("looting bag");
 			}
-			else if (weaponChargesManager.isChargeableWeapon(itemId) && !weaponChargesManager.hasChargeData(itemId))
+			else if (meta.kind == ItemMetaCache.Kind.CHARGED_WEAPON && !weaponChargesManager.hasChargeData(itemId))
 			{
-				chargeableItemsNeedingCheck.add(itemManager.getItemComposition(itemId).getName().toLowerCase());
+				chargeableItemsNeedingCheck.add(meta.lowerCaseName);
 			} 
 			else if (chargedItemManager.isChargeableItem(itemId) && !chargedItemManager.hasChargeData(itemId))
 			{
-				chargeableItemsNeedingCheck.add(itemManager.getItemComposition(itemId).getName().toLowerCase());
+				chargeableItemsNeedingCheck.add(meta.lowerCaseName);
 			} 
 		}
 	}
 
-	static List<LedgerItem> getProfitLossLedger(Map<Integer, Float> initialQtys, Map<Integer, Float> qtys)
-	{
-		Map<Integer, Float> qtyDifferences = new HashMap<>(initialQtys.size());
-
-		HashSet<Integer> combinedQtyKeys = new HashSet<>(initialQtys.size());
-		combinedQtyKeys.addAll(qtys.keySet());
-		combinedQtyKeys.addAll(initialQtys.keySet());
-
-		for (Integer itemId: combinedQtyKeys)
-		{
-			Float initialQty = initialQtys.get(itemId);
-			Float qty = qtys.get(itemId);
-
-			if (initialQty == null)
-			{
-				initialQty = 0f;
-			}
-
-			if (qty == null)
-			{
-				qty = 0f;
-			}
-
-			qtyDifferences.put(itemId, qty - initialQty);
-		}
-
-		Map<String, LedgerItem> ledgerItems  = new HashMap<>(qtyDifferences.size());
+	//one per thread since ledgers are built on the client thread, swing thread and executor
+	private static final ThreadLocal<ProfitLossLedger> profitLossLedgers = ThreadLocal.withInitial(ProfitLossLedger::new);
 
-		for (Integer itemId: qtyDifferences.keySet())
-		{
-			String name = itemNames.get(itemId);
-			if (name == null)
-			{
-				continue;
-			}
-			Float price = itemPrices.get(itemId);
-			if (price == null)
-			{
-				price = 1f;
-			}
-
-			Float qtyDifference = qtyDifferences.get(itemId);
+	//The returned ledger is reused, it's only valid until the next call on the same thread.
+	static ProfitLossLedger buildProfitLossLedger(ItemQtyMap initialQtys, ItemQtyMap qtys)
+	{
+		return buildProfitLossLedger(initialQtys, qtys, priceTable);
+	}
 
-			if (ledgerItems.containsKey(name))
-			{
-				ledgerItems.get(name).addQuantityDifference(qtyDifference);
-			}
-			else
-			{
-				if (price != 0)
-				{
-					ledgerItems.put(name, new LedgerItem(name, qtyDifference, price, itemId));
-				}
-			}
-		}
+	static ProfitLossLedger buildProfitLossLedger(ItemQtyMap initialQtys, ItemQtyMap qtys, PriceTable prices)
+	{
+		ProfitLossLedger ledger = profitLossLedgers.get();
+		ledger.build(initialQtys, qtys, prices);
+		return ledger;
+	}
 
-		//filter out quantities less than round amount here!
-		List<LedgerItem> ledgerItemsFiltered = new LinkedList<>();
-		for (LedgerItem item : ledgerItems.values())
-		{
-			if (Math.abs(item.getQty()) > (roundAmount/2f))
-			{
-				ledgerItemsFiltered.add(item);
-			}
-		}
+	//at the prices the trip was valued with
+	static ProfitLossLedger buildProfitLossLedger(TripData trip)
+	{
+		return buildProfitLossLedger(trip.initialItemQtys, trip.itemQtys, trip.priceTable != null ? trip.priceTable : priceTable);
+	}
 
-		return ledgerItemsFiltered;
+	static List<LedgerItem> getProfitLossLedger(ItemQtyMap initialQtys, ItemQtyMap qtys)
+	{
+		return buildProfitLossLedger(initialQtys, qtys).toLedgerItems();
 	}
 
 	// from ClueScrollPlugin
-	private void addRunepouchContents(Map<Integer, Float> qtyMap)
+	private void addRunepouchContents(ItemQtyMap qtyMap)
 	{
 		EnumComposition runepouchEnum = client.getEnum(EnumID.RUNEPOUCH_RUNE);
 		for (int i = 0; i < RUNEPOUCH_AMOUNT_VARBITS.length; i++)
@@ -1181,63 +1472,58 @@ public class GPPerHourPlugin extends Plugin
 			}
 
 			int runeId = client.getVarbitValue(RUNEPOUCH_RUNE_VARBITS[i]);
+			if (runeId == 0)
+			{
+				continue;
+			}
 			int itemId = runepouchEnum.getIntValue(runeId);
-			ItemComposition itemComposition = itemManager.getItemComposition(itemId);
-			String itemName = itemComposition.getName();
-			boolean ignore = ignoredItems.contains(itemName.toLowerCase());
-			if (runeId == 0 || ignore)
+			if (itemMetaCache.get(itemId).ignored)
 			{
 				continue;
 			}
 
-			qtyMap.merge(itemId, (float) amount, Float::sum);
+			qtyMap.add(itemId, (float) amount);
 		}
 	}
 
-	void updateRunData(boolean isNewRun, int itemId, float itemQty, float gePrice)
+	private final IntFunction<Float> remapPrice = itemId -> ValueRemapper.remapPrice(itemId, this, config);
+
+	static void putItemPrice(int itemId, float price)
 	{
-		if (itemId != COINS && !itemPrices.containsKey(itemId))
-		{
-			itemPrices.put(itemId, gePrice);
-		}
+		priceTable = priceTable.withPrice(itemId, price);
+	}
 
-		itemNames.put(itemId, itemManager.getItemComposition(itemId).getName());
+	static void putItemName(int itemId, String name)
+	{
+		priceTable = priceTable.withName(itemId, name);
+	}
 
-		if (isNewRun)
-		{
-			if (runData.initialItemQtys.containsKey(itemId))
-			{
-				runData.initialItemQtys.put(itemId, runData.initialItemQtys.get(itemId) + itemQty);
-			}
-			else
-			{
-				runData.initialItemQtys.put(itemId, itemQty);
-			}
-		}
+	//one copy for the whole batch
+	static void putItemPricesAndNames(Map<Integer, Float> prices, Map<Integer, String> names)
+	{
+		priceTable = priceTable.withPricesAndNames(prices, names);
+	}
 
-		if (runData.itemQtys.containsKey(itemId))
-		{
-			runData.itemQtys.put(itemId, runData.itemQtys.get(itemId) + itemQty);
-		}
-		else
-		{
-			runData.itemQtys.put(itemId, itemQty);
-		}
+	static PriceTable getPriceTable()
+	{
+		return priceTable;
 	}
 
 	float getPrice(int itemId)
 	{
+		derivedPrices.onPriceRead(itemId);
 		if (itemId == COINS)
 			return 1f;
 		if (itemId == ItemID.PLATINUM)
 			return 1000f;
-		if (itemPrices.containsKey(itemId))
+		Float cachedPrice = refreshedPrices != null ? refreshedPrices.get(itemId) : priceTable.getPrice(itemId);
+		if (cachedPrice != null)
 		{
-			return itemPrices.get(itemId);
+			return cachedPrice;
 		}
 		else
 		{
-			Float remappedValue = ValueRemapper.remapPrice(itemId, this, config);
+			Float remappedValue = derivedPrices.get(itemId, remapPrice);
 			if (remappedValue != null)
 			{
 				return remappedValue;
@@ -1250,9 +1536,8 @@ public class GPPerHourPlugin extends Plugin
 				}
 				else 
 				{
-					ItemComposition itemDef = itemManager.getItemComposition(itemId);
 					// Only check prices for things with store prices
-					int itemPrice = itemDef.getPrice();
+					int itemPrice = itemMetaCache.get(itemId).storePrice;
 					if (itemPrice <= 0)
 					{
 						return 0;
@@ -1264,28 +1549,38 @@ public class GPPerHourPlugin extends Plugin
 		}
 	}
 
+	//debounced, see TripPersister
 	void writeSavedData(String profileKey)
 	{
 		if (runData == null || runData.isFirstRun)
 			return;
-		executor.execute(() ->
-		{
-			String json = gson.toJson(runData);
-			configManager.setConfiguration(GPPerHourConfig.GROUP, profileKey, "inventory_total_data", json);
-		});
+		tripPersister.request(profileKey, runData);
+	}
+
+	//written before returning, for when the trip or profile is about to go away
+	void flushSavedData(String profileKey)
+	{
+		if (runData == null || runData.isFirstRun)
+			return;
+		tripPersister.flush(profileKey, runData);
 	}
 
 	private TripData getSavedData()
 	{
-		String json = readData( "inventory_total_data");
+		String data = readData( "inventory_total_data");
 		TripData savedData = null;
-		try 
+		if (data != null)
 		{
-			savedData = gson.fromJson(json, TripData.class);
-		}
-		catch(Exception e)
-		{
-			log.error("Failed to load run data from json: " + json, e);
+			try
+			{
+				//older versions saved it as json
+				byte[] bytes = data.startsWith("{") ? data.getBytes(StandardCharsets.UTF_8) : Base64.getDecoder().decode(data);
+				savedData = SaveDataCodec.decodeTrip(bytes, gson);
+			}
+			catch(Exception e)
+			{
+				log.error("Failed to load run data: " + data, e);
+			}
 		}
 
 		if (savedData == null)
@@ -1342,9 +1637,13 @@ public class GPPerHourPlugin extends Plugin
 		if (runData == null)
 			return 0;
 		double value = 0;
-		for (java.util.Map.Entry<Integer, Float> entry : runData.initialItemQtys.entrySet())
+		ItemQtyMap initialItemQtys = runData.initialItemQtys;
+		for (int i = 0; i < initialItemQtys.capacity(); ++i)
 		{
-			value += getPrice(entry.getKey()) * entry.getValue();
+			if (initialItemQtys.isUsed(i))
+			{
+				value += getPrice(initialItemQtys.keyAt(i)) * initialItemQtys.valueAt(i);
+			}
 		}
 		return (long) value;
 	}
@@ -34,7 +34,6 @@ import net.runelite.api.gameval.VarbitID;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetUtil;
 import net.runelite.client.config.ConfigManager;
-import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
@@ -88,7 +87,7 @@ public class GoldDropManager extends Overlay {
 	/*
 	Singletons which will be provided at creation by the plugin
 	 */
-	private final ItemManager itemManager;
+	private final ItemImageCache itemImageCache;
 	private final Client client;
 	private final GPPerHourConfig config;
 	private final ConfigManager configManager;
@@ -119,11 +118,11 @@ public class GoldDropManager extends Overlay {
     }
 
 	@Inject
-	GoldDropManager(Client client, GPPerHourPlugin plugin, ItemManager itemManager, GPPerHourConfig config, ConfigManager configManager)
+	GoldDropManager(Client client, GPPerHourPlugin plugin, ItemImageCache itemImageCache, GPPerHourConfig config, ConfigManager configManager)
 	{
 		this.client = client;
 		this.plugin = plugin;
-		this.itemManager = itemManager;
+		this.itemImageCache = itemImageCache;
 		this.config = config;
 		this.configManager = configManager;
 		setPosition(OverlayPosition.DYNAMIC);
@@ -272,7 +271,7 @@ public class GoldDropManager extends Overlay {
         */
 
 		// get image object by coin item id
-		AsyncBufferedImage coin_image_raw = itemManager.getImage(ItemID.COINS, quantity, false);
+		AsyncBufferedImage coin_image_raw = itemImageCache.getImage(ItemID.COINS, quantity, false);
 
 		Runnable r = () -> {
 			final SpritePixels coin_sprite = ImageUtil.getImageSpritePixels(coin_image_raw, client);
@@ -446,7 +445,7 @@ public class GoldDropManager extends Overlay {
 
     private BufferedImage loadCoinsImage(int quantity)
     {
-		BufferedImage image = itemManager.getImage(ItemID.COINS, quantity, false);
+		BufferedImage image = itemImageCache.getImage(ItemID.COINS, quantity, false);
 		image = ImageUtil.resizeImage(image, staticImageDimension, staticImageDimension);
 		return image;
     }
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.game.ItemManager;
+
+//The ignored items config compiled into item id bitsets.
+//Entries can be item names ("Cannon base"), wildcards ("*(4)", "Rune *") or item ids ("2").
+//Noted and placeholder variants are matched through their unnoted item.
+//Each item id is only matched against the entries the first time it's seen, after that it's a bit lookup.
+//Must be used from the client thread (ItemManager.canonicalize/getItemComposition).
+@Slf4j
+class IgnoredItems
+{
+	private final ItemManager itemManager;
+
+	private final Set<String> names = new HashSet<>();
+	private final List<Pattern> wildcards = new ArrayList<>();
+	private final BitSet ids = new BitSet();
+
+	//ids that have been matched against the entries
+	private final BitSet resolved = new BitSet();
+	//ids that matched
+	private final BitSet ignored = new BitSet();
+
+	IgnoredItems(ItemManager itemManager)
+	{
+		this.itemManager = itemManager;
+	}
+
+	void rebuild(String ignoredItemsConfig)
+	{
+		names.clear();
+		wildcards.clear();
+		ids.clear();
+		resolved.clear();
+		ignored.clear();
+
+		for (String entry : ignoredItemsConfig.split(","))
+		{
+			String item = entry.trim().toLowerCase();
+			if (item.isEmpty())
+			{
+				continue;
+			}
+			if (item.contains("*"))
+			{
+				wildcards.add(compileWildcard(item));
+			}
+			else if (isItemId(item))
+			{
+				try
+				{
+					ids.set(Integer.parseInt(item));
+				}
+				catch (NumberFormatException e)
+				{
+					log.warn("Ignored item id out of range: " + item);
+				}
+			}
+			else
+			{
+				names.add(item);
+			}
+		}
+	}
+
+	boolean isIgnored(int itemId)
+	{
+		if (itemId < 0)
+		{
+			return false;
+		}
+		if (!resolved.get(itemId))
+		{
+			resolved.set(itemId);
+			if (matches(itemId))
+			{
+				ignored.set(itemId);
+			}
+		}
+		return ignored.get(itemId);
+	}
+
+	private boolean matches(int itemId)
+	{
+		//noted and placeholder items canonicalize to the real item
+		int canonicalId = itemManager.canonicalize(itemId);
+		if (ids.get(itemId) || ids.get(canonicalId))
+		{
+			return true;
+		}
+		if (names.isEmpty() && wildcards.isEmpty())
+		{
+			return false;
+		}
+		String name = itemManager.getItemComposition(canonicalId).getName().toLowerCase();
+		if (names.contains(name))
+		{
+			return true;
+		}
+		for (Pattern wildcard : wildcards)
+		{
+			if (wildcard.matcher(name).matches())
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isItemId(String item)
+	{
+		for (int i = 0; i < item.length(); ++i)
+		{
+			if (!Character.isDigit(item.charAt(i)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	//only * is special, everything else (like the brackets in "*(4)") is matched literally
+	private static Pattern compileWildcard(String wildcard)
+	{
+		StringBuilder regex = new StringBuilder();
+		int start = 0;
+		int star;
+		while ((star = wildcard.indexOf('*', start)) != -1)
+		{
+			if (star > start)
+			{
+				regex.append(Pattern.quote(wildcard.substring(start, star)));
+			}
+			regex.append(".*");
+			start = star + 1;
+		}
+		if (start < wildcard.length())
+		{
+			regex.append(Pattern.quote(wildcard.substring(start)));
+		}
+		return Pattern.compile(regex.toString());
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.util.AsyncBufferedImage;
+
+//LRU cache of item images keyed by item id and the stack size drawn on them, so the loot grids and coin icons
+//don't go back to ItemManager for images they already asked for. Bounded by an estimate of the pixel memory held.
+@Singleton
+class ItemImageCache
+{
+	private static final int BYTES_PER_PIXEL = 4;
+
+	private final ItemManager itemManager;
+	private final GPPerHourConfig config;
+	//access ordered, so iteration starts at the least recently used image
+	private final LinkedHashMap<Long, AsyncBufferedImage> images = new LinkedHashMap<>(64, 0.75f, true);
+	private long bytes;
+	private long hits;
+	private long misses;
+
+	@Inject
+	ItemImageCache(ItemManager itemManager, GPPerHourConfig config)
+	{
+		this.itemManager = itemManager;
+		this.config = config;
+	}
+
+	synchronized AsyncBufferedImage getImage(int itemId, int quantity, boolean stackable)
+	{
+		int bucket = getStackBucket(quantity);
+		long key = ((long) itemId << 32) | ((long) bucket << 1) | (stackable ? 1 : 0);
+		AsyncBufferedImage image = images.get(key);
+		if (image != null)
+		{
+			hits++;
+			return image;
+		}
+		misses++;
+		image = itemManager.getImage(itemId, bucket, stackable);
+		images.put(key, image);
+		bytes += sizeOf(image);
+		trim();
+		return image;
+	}
+
+	//Evicts least recently used images until the cache fits in the configured size
+	synchronized void trim()
+	{
+		long limit = config.itemImageCacheSize() * 1024L;
+		Iterator<AsyncBufferedImage> it = images.values().iterator();
+		//the most recent image is always kept since someone is about to draw it
+		while (bytes > limit && images.size() > 1)
+		{
+			bytes -= sizeOf(it.next());
+			it.remove();
+		}
+	}
+
+	synchronized void clear()
+	{
+		images.clear();
+		bytes = 0;
+		hits = 0;
+		misses = 0;
+	}
+
+	synchronized long getHits()
+	{
+		return hits;
+	}
+
+	synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	synchronized long getBytes()
+	{
+		return bytes;
+	}
+
+	//Quantities that are drawn with the same stack text (100K, 12M, ...) share one image
+	static int getStackBucket(int quantity)
+	{
+		if (quantity < 100_000)
+		{
+			return quantity;
+		}
+		if (quantity < 10_000_000)
+		{
+			return quantity / 1_000 * 1_000;
+		}
+		return quantity / 1_000_000 * 1_000_000;
+	}
+
+	private static long sizeOf(AsyncBufferedImage image)
+	{
+		return (long) image.getWidth() * image.getHeight() * BYTES_PER_PIXEL;
+	}
+}
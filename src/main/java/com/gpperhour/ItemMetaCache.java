@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import com.gpperhour.weaponcharges.WeaponChargesManager;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import lombok.RequiredArgsConstructor;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.gameval.ItemID;
+import net.runelite.client.game.ItemManager;
+
+//Per item id data that the per-slot code needs every tick, resolved from the ItemComposition once per id.
+//Stored in an array indexed by item id so a lookup is a single array read.
+//Must be used from the client thread (ItemManager.getItemComposition).
+class ItemMetaCache
+{
+	enum Kind
+	{
+		NORMAL,
+		RUNE_POUCH,
+		LOOTING_BAG,
+		CHARGED_WEAPON,
+	}
+
+	@RequiredArgsConstructor
+	static class ItemMeta
+	{
+		final String name;
+		final String lowerCaseName;
+		final int storePrice;
+		final boolean ignored;
+		//-1 if the item isn't remapped by FractionalRemapper
+		final int remappedId;
+		final Kind kind;
+	}
+
+	private static final int INITIAL_SIZE = 32768;
+
+	private final ItemManager itemManager;
+	private final WeaponChargesManager weaponChargesManager;
+	private final IgnoredItems ignoredItems;
+	private final BooleanSupplier isClientThread;
+	private ItemMeta[] metas = new ItemMeta[INITIAL_SIZE];
+
+	ItemMetaCache(ItemManager itemManager, WeaponChargesManager weaponChargesManager, IgnoredItems ignoredItems,
+		BooleanSupplier isClientThread)
+	{
+		this.itemManager = itemManager;
+		this.weaponChargesManager = weaponChargesManager;
+		this.ignoredItems = ignoredItems;
+		this.isClientThread = isClientThread;
+	}
+
+	ItemMeta get(int itemId)
+	{
+		if (itemId < 0)
+		{
+			//blowpipe uses -1 for unknown darts, not worth caching
+			return resolve(itemId);
+		}
+		if (itemId >= metas.length)
+		{
+			metas = Arrays.copyOf(metas, Math.max(itemId + 1, metas.length * 2));
+		}
+		ItemMeta meta = metas[itemId];
+		if (meta == null)
+		{
+			meta = resolve(itemId);
+			metas[itemId] = meta;
+		}
+		return meta;
+	}
+
+	//Ignored items or value mode changed. On the client thread, or a get() running at the same time could store
+	//an entry resolved from the old settings after it.
+	void invalidate()
+	{
+		assert isClientThread.getAsBoolean() : "item cache invalidated off the client thread";
+		Arrays.fill(metas, null);
+	}
+
+	private ItemMeta resolve(int itemId)
+	{
+		ItemComposition itemComposition = itemManager.getItemComposition(itemId);
+		String name = itemComposition.getName();
+		String lowerCaseName = name.toLowerCase();
+		return new ItemMeta(
+			name,
+			lowerCaseName,
+			itemComposition.getPrice(),
+			ignoredItems.isIgnored(itemId),
+			FractionalRemapper.getRemappedId(itemId),
+			getKind(itemId));
+	}
+
+	private Kind getKind(int itemId)
+	{
+		if (itemId == GPPerHourPlugin.RUNEPOUCH_ITEM_ID || itemId == GPPerHourPlugin.DIVINE_RUNEPOUCH_ITEM_ID
+			|| itemId == GPPerHourPlugin.RUNEPOUCH_TROUVER_ITEM_ID || itemId == GPPerHourPlugin.DIVINE_RUNEPOUCH_TROUVER_ITEM_ID)
+		{
+			return Kind.RUNE_POUCH;
+		}
+		if (itemId == ItemID.LOOTING_BAG || itemId == ItemID.LOOTING_BAG_OPEN)
+		{
+			return Kind.LOOTING_BAG;
+		}
+		//charged items (ChargedItemManager) aren't cached here since which variant they track changes at runtime
+		if (weaponChargesManager.isChargeableWeapon(itemId))
+		{
+			return Kind.CHARGED_WEAPON;
+		}
+		return Kind.NORMAL;
+	}
+}
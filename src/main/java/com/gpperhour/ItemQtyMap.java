@@ -0,0 +1,470 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+//Item id -> quantity map backed by primitive arrays (open addressing, linear probing).
+//Quantities are rebuilt every tick so this avoids the boxing and entry garbage of a HashMap<Integer, Float>.
+//Serializes to the same json object as a Map<Integer, Float> so saved trips and sessions stay compatible.
+@JsonAdapter(ItemQtyMap.JsonTypeAdapter.class)
+public class ItemQtyMap
+{
+	//item ids are never this low (blowpipe uses -1 for an unknown dart so we can't use that)
+	static final int EMPTY_KEY = Integer.MIN_VALUE;
+	private static final int DEFAULT_CAPACITY = 32;
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private int[] keys;
+	private float[] values;
+	private int size;
+	private int resizeThreshold;
+
+	public ItemQtyMap()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ItemQtyMap(int expectedSize)
+	{
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	public ItemQtyMap(ItemQtyMap other)
+	{
+		this(other.size);
+		addAll(other);
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public boolean containsKey(int itemId)
+	{
+		return indexOf(itemId) >= 0;
+	}
+
+	//Returns 0 for items not in the map.
+	public float get(int itemId)
+	{
+		int index = indexOf(itemId);
+		return index < 0 ? 0f : values[index];
+	}
+
+	public void put(int itemId, float qty)
+	{
+		int index = insertionIndex(itemId);
+		if (keys[index] == EMPTY_KEY)
+		{
+			keys[index] = itemId;
+			values[index] = qty;
+			onInserted();
+		}
+		else
+		{
+			values[index] = qty;
+		}
+	}
+
+	//Same as Map.merge(itemId, qty, Float::sum)
+	public void add(int itemId, float qty)
+	{
+		int index = insertionIndex(itemId);
+		if (keys[index] == EMPTY_KEY)
+		{
+			keys[index] = itemId;
+			values[index] = qty;
+			onInserted();
+		}
+		else
+		{
+			values[index] += qty;
+		}
+	}
+
+	public void addAll(ItemQtyMap other)
+	{
+		int[] otherKeys = other.keys;
+		float[] otherValues = other.values;
+		for (int i = 0; i < otherKeys.length; ++i)
+		{
+			if (otherKeys[i] != EMPTY_KEY)
+			{
+				add(otherKeys[i], otherValues[i]);
+			}
+		}
+	}
+
+	public void addAll(Map<Integer, Float> other)
+	{
+		for (Map.Entry<Integer, Float> entry : other.entrySet())
+		{
+			add(entry.getKey(), entry.getValue());
+		}
+	}
+
+	//Returns the removed quantity, or 0 if the item wasn't in the map.
+	public float remove(int itemId)
+	{
+		int index = indexOf(itemId);
+		if (index < 0)
+		{
+			return 0f;
+		}
+		float removed = values[index];
+		removeAt(index);
+		return removed;
+	}
+
+	//Keeps the backing arrays so the map can be refilled without allocating.
+	public void clear()
+	{
+		if (size == 0)
+		{
+			return;
+		}
+		Arrays.fill(keys, EMPTY_KEY);
+		size = 0;
+	}
+
+	public void copyFrom(ItemQtyMap other)
+	{
+		if (other == this)
+		{
+			return;
+		}
+		clear();
+		addAll(other);
+	}
+
+	//Copies the item ids into the given array (growing it if needed) and returns it.
+	//Used when the map needs to be modified while looping over its contents.
+	public int[] copyKeys(int[] destination)
+	{
+		if (destination == null || destination.length < size)
+		{
+			destination = new int[Math.max(size, DEFAULT_CAPACITY)];
+		}
+		int count = 0;
+		for (int key : keys)
+		{
+			if (key != EMPTY_KEY)
+			{
+				destination[count++] = key;
+			}
+		}
+		return destination;
+	}
+
+	//Packs the entries into longs sorted by item id (see entryItemId/entryQty), grows the array if needed.
+	//The first size() entries are valid.
+	public long[] toSortedEntries(long[] destination)
+	{
+		if (destination == null || destination.length < size)
+		{
+			destination = new long[Math.max(size, DEFAULT_CAPACITY)];
+		}
+		int count = 0;
+		for (int i = 0; i < keys.length; ++i)
+		{
+			if (keys[i] != EMPTY_KEY)
+			{
+				//item id in the high bits so sorting the longs sorts by id (negative ids included)
+				destination[count++] = ((long) keys[i] << 32) | (Float.floatToRawIntBits(values[i]) & 0xFFFFFFFFL);
+			}
+		}
+		Arrays.sort(destination, 0, count);
+		return destination;
+	}
+
+	public static int entryItemId(long entry)
+	{
+		return (int) (entry >> 32);
+	}
+
+	public static float entryQty(long entry)
+	{
+		return Float.intBitsToFloat((int) entry);
+	}
+
+	//Slot based iteration, avoids iterator allocation:
+	//for (int i = 0; i < map.capacity(); ++i) if (map.isUsed(i)) { map.keyAt(i); map.valueAt(i); }
+	public int capacity()
+	{
+		return keys.length;
+	}
+
+	public boolean isUsed(int slot)
+	{
+		return keys[slot] != EMPTY_KEY;
+	}
+
+	public int keyAt(int slot)
+	{
+		return keys[slot];
+	}
+
+	public float valueAt(int slot)
+	{
+		return values[slot];
+	}
+
+	public void setValueAt(int slot, float qty)
+	{
+		values[slot] = qty;
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+		if (!(o instanceof ItemQtyMap))
+		{
+			return false;
+		}
+		ItemQtyMap other = (ItemQtyMap) o;
+		if (other.size != size)
+		{
+			return false;
+		}
+		for (int i = 0; i < keys.length; ++i)
+		{
+			if (keys[i] == EMPTY_KEY)
+			{
+				continue;
+			}
+			int otherIndex = other.indexOf(keys[i]);
+			if (otherIndex < 0 || Float.floatToIntBits(other.values[otherIndex]) != Float.floatToIntBits(values[i]))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int hash = 0;
+		for (int i = 0; i < keys.length; ++i)
+		{
+			if (keys[i] != EMPTY_KEY)
+			{
+				hash += keys[i] ^ Float.floatToIntBits(values[i]);
+			}
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder("{");
+		for (int i = 0; i < keys.length; ++i)
+		{
+			if (keys[i] != EMPTY_KEY)
+			{
+				if (builder.length() > 1)
+				{
+					builder.append(", ");
+				}
+				builder.append(keys[i]).append('=').append(values[i]);
+			}
+		}
+		return builder.append('}').toString();
+	}
+
+	private static int tableSizeFor(int expectedSize)
+	{
+		int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+		int tableSize = Integer.highestOneBit(Math.max(needed - 1, 1)) << 1;
+		return Math.max(tableSize, 8);
+	}
+
+	private void allocate(int tableSize)
+	{
+		keys = new int[tableSize];
+		Arrays.fill(keys, EMPTY_KEY);
+		values = new float[tableSize];
+		resizeThreshold = (int) (tableSize * LOAD_FACTOR);
+	}
+
+	private static int hash(int itemId)
+	{
+		int h = itemId * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private int indexOf(int itemId)
+	{
+		if (itemId == EMPTY_KEY)
+		{
+			return -1;
+		}
+		int mask = keys.length - 1;
+		int index = hash(itemId) & mask;
+		while (true)
+		{
+			int key = keys[index];
+			if (key == itemId)
+			{
+				return index;
+			}
+			if (key == EMPTY_KEY)
+			{
+				return -1;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	//Index of the item or of the empty slot it should go in
+	private int insertionIndex(int itemId)
+	{
+		if (itemId == EMPTY_KEY)
+		{
+			throw new IllegalArgumentException("Invalid item id: " + itemId);
+		}
+		int mask = keys.length - 1;
+		int index = hash(itemId) & mask;
+		while (true)
+		{
+			int key = keys[index];
+			if (key == itemId || key == EMPTY_KEY)
+			{
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	private void onInserted()
+	{
+		if (++size > resizeThreshold)
+		{
+			int[] oldKeys = keys;
+			float[] oldValues = values;
+			allocate(oldKeys.length * 2);
+			size = 0;
+			for (int i = 0; i < oldKeys.length; ++i)
+			{
+				if (oldKeys[i] != EMPTY_KEY)
+				{
+					int index = insertionIndex(oldKeys[i]);
+					keys[index] = oldKeys[i];
+					values[index] = oldValues[i];
+					size++;
+				}
+			}
+		}
+	}
+
+	//Backward shift deletion so lookups never need tombstones
+	private void removeAt(int index)
+	{
+		int mask = keys.length - 1;
+		int gap = index;
+		int next = (gap + 1) & mask;
+		while (keys[next] != EMPTY_KEY)
+		{
+			int home = hash(keys[next]) & mask;
+			//move the entry back if its home slot isn't between the gap and its current slot
+			if (((next - home) & mask) >= ((next - gap) & mask))
+			{
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[gap] = EMPTY_KEY;
+		size--;
+	}
+
+	//Reads and writes {"itemId": qty, ...} exactly like gson does for a Map<Integer, Float>
+	static class JsonTypeAdapter extends TypeAdapter<ItemQtyMap>
+	{
+		@Override
+		public void write(JsonWriter out, ItemQtyMap map) throws IOException
+		{
+			if (map == null)
+			{
+				out.nullValue();
+				return;
+			}
+			out.beginObject();
+			for (int i = 0; i < map.keys.length; ++i)
+			{
+				if (map.keys[i] != EMPTY_KEY)
+				{
+					out.name(Integer.toString(map.keys[i]));
+					out.value(Float.valueOf(map.values[i]));
+				}
+			}
+			out.endObject();
+		}
+
+		@Override
+		public ItemQtyMap read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+			ItemQtyMap map = new ItemQtyMap();
+			in.beginObject();
+			while (in.hasNext())
+			{
+				int itemId = Integer.parseInt(in.nextName());
+				if (in.peek() == JsonToken.NULL)
+				{
+					in.nextNull();
+					continue;
+				}
+				map.put(itemId, (float) in.nextDouble());
+			}
+			in.endObject();
+			return map;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import lombok.Getter;
+
+//The items of a ledger worth showing: the limit most valuable (by absolute value) sorted by value descending,
+//with the rest only counted and summed. Selected with a heap bounded to the limit so a ledger with hundreds of
+//items doesn't get fully sorted just to show the first few rows.
+@Getter
+class LedgerSelection
+{
+	//ties broken by id so the same ledger always comes out the same
+	private static final Comparator<LedgerItem> BY_ABSOLUTE_VALUE =
+		Comparator.<LedgerItem>comparingLong(item -> Math.abs(item.getCombinedValue())).thenComparingInt(LedgerItem::getItemId);
+	private static final Comparator<LedgerItem> BY_VALUE_DESCENDING =
+		Comparator.<LedgerItem>comparingLong(item -> -item.getCombinedValue()).thenComparingInt(LedgerItem::getItemId);
+
+	private final List<LedgerItem> items;
+	private final int hiddenCount;
+	private final long hiddenValue;
+	//of every item, shown or not
+	private final long totalGain;
+	private final long totalLoss;
+
+	private LedgerSelection(List<LedgerItem> items, int hiddenCount, long hiddenValue, long totalGain, long totalLoss)
+	{
+		this.items = items;
+		this.hiddenCount = hiddenCount;
+		this.hiddenValue = hiddenValue;
+		this.totalGain = totalGain;
+		this.totalLoss = totalLoss;
+	}
+
+	//a limit of 0 or less keeps every item
+	static LedgerSelection select(List<LedgerItem> ledger, int limit)
+	{
+		long totalGain = 0;
+		long totalLoss = 0;
+		for (LedgerItem item : ledger)
+		{
+			if (item.getQty() > 0)
+			{
+				totalGain += item.getCombinedValue();
+			}
+			else if (item.getQty() < 0)
+			{
+				totalLoss += item.getCombinedValue();
+			}
+		}
+
+		if (limit <= 0 || ledger.size() <= limit)
+		{
+			List<LedgerItem> items = new ArrayList<>(ledger);
+			items.sort(BY_VALUE_DESCENDING);
+			return new LedgerSelection(Collections.unmodifiableList(items), 0, 0, totalGain, totalLoss);
+		}
+
+		//min heap of the most valuable so far, the least valuable of them is the one to beat
+		PriorityQueue<LedgerItem> heap = new PriorityQueue<>(limit, BY_ABSOLUTE_VALUE);
+		long hiddenValue = 0;
+		for (LedgerItem item : ledger)
+		{
+			if (heap.size() < limit)
+			{
+				heap.add(item);
+			}
+			else if (BY_ABSOLUTE_VALUE.compare(item, heap.peek()) > 0)
+			{
+				hiddenValue += heap.poll().getCombinedValue();
+				heap.add(item);
+			}
+			else
+			{
+				hiddenValue += item.getCombinedValue();
+			}
+		}
+		List<LedgerItem> items = new ArrayList<>(heap);
+		items.sort(BY_VALUE_DESCENDING);
+		return new LedgerSelection(Collections.unmodifiableList(items), ledger.size() - limit, hiddenValue, totalGain, totalLoss);
+	}
+
+	boolean isEmpty()
+	{
+		return items.isEmpty();
+	}
+
+	//the collapsed row for the items that didn't make the cut, e.g. "12 more items"
+	String getHiddenDescription()
+	{
+		return hiddenCount + (hiddenCount == 1 ? " more item" : " more items");
+	}
+}
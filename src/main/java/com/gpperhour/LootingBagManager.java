@@ -37,6 +37,7 @@ import com.google.gson.Gson;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Item;
@@ -101,6 +102,9 @@ public class LootingBagManager
 	private int lastLootingBagUseOn = -2;
 
 	private PickupAction lastPickUpAction;
+	//lets the plugin know the inventory needs to be re-valued
+	@Setter
+	private Runnable onContentsChanged;
 
 	public void loadConfigData()
 	{
@@ -135,7 +139,7 @@ public class LootingBagManager
 			if (bagItems == null)
 				bagItems = new HashMap<>();
 			bagItems.clear();
-			saveData();
+			onBagItemsChanged();
 			return;
 		}
 		if (bagItems == null)
@@ -148,10 +152,10 @@ public class LootingBagManager
 				bagItems.merge(item.getId(), item.getQuantity(), Integer::sum);
 			}
 		}
-		saveData();
+		onBagItemsChanged();
 	}
 
-	void addLootingBagContents(Map<Integer,Float> qtyMap)
+	void addLootingBagContents(ItemQtyMap qtyMap)
 	{
 		//needs to be checked/calibrated
 		if (bagItems == null)
@@ -160,7 +164,7 @@ public class LootingBagManager
 		}
 		for (Integer itemId: bagItems.keySet())
 		{
-			qtyMap.merge(itemId, (float) bagItems.get(itemId), Float::sum);
+			qtyMap.add(itemId, (float) bagItems.get(itemId));
 		}
 	}
 
@@ -198,7 +202,7 @@ public class LootingBagManager
 						bagItems.merge(itemId, count, Integer::sum);
 					}
 				}
-				saveData();
+				onBagItemsChanged();
 			}
 			inventory_items = event.getItemContainer().getItems();
 		}
@@ -308,7 +312,7 @@ public class LootingBagManager
 
 		int quantity = event.getItem().getQuantity();
 		bagItems.merge(itemId, quantity, Integer::sum);
-		saveData();
+		onBagItemsChanged();
 	}
 
 	private boolean canAddItem(int itemId)
@@ -333,6 +337,15 @@ public class LootingBagManager
 		return itemManager.getItemComposition(itemId).isStackable();
 	}
 
+	private void onBagItemsChanged()
+	{
+		saveData();
+		if (onContentsChanged != null)
+		{
+			onContentsChanged.run();
+		}
+	}
+
 	private void saveData()
 	{
 		executor.execute(() ->
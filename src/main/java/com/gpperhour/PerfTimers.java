@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+//Lightweight timers around the per tick pipeline, off by default (see GPPerHourConfig.enablePerfTimers).
+//Usage: long start = PerfTimers.start(); ...; PerfTimers.stop(PerfTimers.Timer.X, start);
+//Recording only writes into a preallocated ring buffer, percentiles are computed when someone looks at them.
+public class PerfTimers
+{
+	public enum Timer
+	{
+		UPDATE_PLUGIN_STATE("updatePluginState"),
+		IS_BANKING("isBanking"),
+		REFRESH_QTY_MAP("refreshQtyMap"),
+		ACTIVE_SESSION_STATS("getActiveSessionStats"),
+		UPDATE_PANELS("updatePanels"),
+		ANALYTICS_FRAME("Analytics frame"),
+		CHARGED_ITEMS_DISPATCH("ChargedItemManager"),
+		WEAPON_CHARGES_CHAT("WeaponCharges chat");
+
+		final String displayName;
+
+		Timer(String displayName)
+		{
+			this.displayName = displayName;
+		}
+	}
+
+	//number of most recent samples the percentiles are taken over
+	static final int WINDOW_SIZE = 1024;
+	private static final long DISABLED = Long.MIN_VALUE;
+
+	private static volatile boolean enabled = false;
+	private static final RollingHistogram[] histograms = new RollingHistogram[Timer.values().length];
+	static
+	{
+		for (int i = 0; i < histograms.length; ++i)
+		{
+			histograms[i] = new RollingHistogram();
+		}
+	}
+
+	static void setEnabled(boolean enabled)
+	{
+		if (enabled && !PerfTimers.enabled)
+		{
+			reset();
+		}
+		PerfTimers.enabled = enabled;
+	}
+
+	static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public static long start()
+	{
+		return enabled ? System.nanoTime() : DISABLED;
+	}
+
+	public static void stop(Timer timer, long start)
+	{
+		if (start == DISABLED)
+		{
+			return;
+		}
+		histograms[timer.ordinal()].record(System.nanoTime() - start);
+	}
+
+	static void reset()
+	{
+		for (RollingHistogram histogram : histograms)
+		{
+			histogram.reset();
+		}
+	}
+
+	//fills the snapshot with the current percentiles of the timer, returns false if nothing was recorded
+	static boolean snapshot(Timer timer, Snapshot snapshot)
+	{
+		return histograms[timer.ordinal()].snapshot(snapshot);
+	}
+
+	static void dump(File file) throws IOException
+	{
+		File parent = file.getParentFile();
+		if (parent != null)
+		{
+			parent.mkdirs();
+		}
+		Snapshot snapshot = new Snapshot();
+		try (PrintWriter writer = new PrintWriter(file, "UTF-8"))
+		{
+			writer.println("GP Per Hour timings, last " + WINDOW_SIZE + " samples per timer, microseconds");
+			writer.println(String.format("%-24s %10s %10s %10s %10s", "timer", "samples", "p50", "p99", "max"));
+			for (Timer timer : Timer.values())
+			{
+				if (!snapshot(timer, snapshot))
+				{
+					writer.println(String.format("%-24s %10d", timer.displayName, 0));
+					continue;
+				}
+				writer.println(String.format("%-24s %10d %10.1f %10.1f %10.1f", timer.displayName, snapshot.totalSamples,
+					toMicros(snapshot.p50), toMicros(snapshot.p99), toMicros(snapshot.max)));
+			}
+		}
+	}
+
+	static double toMicros(long nanos)
+	{
+		return nanos / 1000.0;
+	}
+
+	static class Snapshot
+	{
+		long totalSamples;
+		long p50;
+		long p99;
+		long max;
+	}
+
+	private static class RollingHistogram
+	{
+		private final long[] samples = new long[WINDOW_SIZE];
+		//sorted copy, only touched while snapshotting
+		private final long[] sorted = new long[WINDOW_SIZE];
+		private long totalSamples;
+
+		synchronized void record(long nanos)
+		{
+			samples[(int) (totalSamples % WINDOW_SIZE)] = nanos;
+			totalSamples++;
+		}
+
+		synchronized void reset()
+		{
+			totalSamples = 0;
+		}
+
+		synchronized boolean snapshot(Snapshot snapshot)
+		{
+			int count = (int) Math.min(totalSamples, WINDOW_SIZE);
+			if (count == 0)
+			{
+				return false;
+			}
+			System.arraycopy(samples, 0, sorted, 0, count);
+			Arrays.sort(sorted, 0, count);
+			snapshot.totalSamples = totalSamples;
+			snapshot.p50 = sorted[percentileIndex(count, 0.50)];
+			snapshot.p99 = sorted[percentileIndex(count, 0.99)];
+			snapshot.max = sorted[count - 1];
+			return true;
+		}
+
+		private static int percentileIndex(int count, double percentile)
+		{
+			return Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+
+import javax.inject.Inject;
+
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+//Developer overlay listing p50/p99/max of each PerfTimers timer in microseconds, plus how the item image cache is doing.
+class PerfTimersOverlay extends OverlayPanel
+{
+	private final PerfTimers.Snapshot snapshot = new PerfTimers.Snapshot();
+	private final ItemImageCache itemImageCache;
+
+	@Inject
+	private PerfTimersOverlay(GPPerHourPlugin plugin, ItemImageCache itemImageCache)
+	{
+		super(plugin);
+		this.itemImageCache = itemImageCache;
+		setPosition(OverlayPosition.TOP_LEFT);
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		if (!PerfTimers.isEnabled())
+		{
+			return null;
+		}
+		panelComponent.getChildren().add(TitleComponent.builder().text("GP/hr timings (us) p50 / p99 / max").build());
+		for (PerfTimers.Timer timer : PerfTimers.Timer.values())
+		{
+			String right = "-";
+			Color rightColor = Color.WHITE;
+			if (PerfTimers.snapshot(timer, snapshot))
+			{
+				right = String.format("%.0f / %.0f / %.0f", PerfTimers.toMicros(snapshot.p50),
+					PerfTimers.toMicros(snapshot.p99), PerfTimers.toMicros(snapshot.max));
+				//more than a millisecond at p99 is worth a look
+				rightColor = snapshot.p99 > 1_000_000 ? Color.RED : Color.WHITE;
+			}
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left(timer.displayName)
+				.right(right)
+				.rightColor(rightColor)
+				.build());
+		}
+		panelComponent.getChildren().add(LineComponent.builder()
+			.left("Image cache hit / miss / KB")
+			.right(String.format("%d / %d / %d", itemImageCache.getHits(), itemImageCache.getMisses(),
+				itemImageCache.getBytes() / 1024))
+			.build());
+		panelComponent.setPreferredSize(new Dimension(300, 0));
+		return super.render(graphics);
+	}
+}
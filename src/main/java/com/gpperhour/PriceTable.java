@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import lombok.Getter;
+
+//Immutable snapshot of the cached item prices and names. Every update makes a new table (copy on write) with a
+//higher version, so ledgers can be built on any thread from whichever table was read, without locks and without
+//seeing a half updated cache. Trips keep the table they were valued with.
+final class PriceTable
+{
+	static final PriceTable EMPTY = new PriceTable(0, Collections.emptyMap(), Collections.emptyMap());
+
+	//increases with every update, unique per table
+	@Getter
+	private final int version;
+	private final Map<Integer, Float> prices;
+	private final Map<Integer, String> names;
+
+	private PriceTable(int version, Map<Integer, Float> prices, Map<Integer, String> names)
+	{
+		this.version = version;
+		this.prices = prices;
+		this.names = names;
+	}
+
+	//null if the item has no cached price
+	Float getPrice(int itemId)
+	{
+		return prices.get(itemId);
+	}
+
+	boolean hasPrice(int itemId)
+	{
+		return prices.containsKey(itemId);
+	}
+
+	//null if the item has no cached name
+	String getName(int itemId)
+	{
+		return names.get(itemId);
+	}
+
+	boolean hasName(int itemId)
+	{
+		return names.containsKey(itemId);
+	}
+
+	//read only view
+	Map<Integer, Float> getPrices()
+	{
+		return Collections.unmodifiableMap(prices);
+	}
+
+	Set<Integer> getPricedItemIds()
+	{
+		return Collections.unmodifiableSet(prices.keySet());
+	}
+
+	PriceTable withPrice(int itemId, float price)
+	{
+		Float oldPrice = prices.get(itemId);
+		if (oldPrice != null && oldPrice == price)
+		{
+			return this;
+		}
+		Map<Integer, Float> newPrices = new HashMap<>(prices);
+		newPrices.put(itemId, price);
+		return new PriceTable(version + 1, newPrices, names);
+	}
+
+	PriceTable withName(int itemId, String name)
+	{
+		if (Objects.equals(names.get(itemId), name) && names.containsKey(itemId))
+		{
+			return this;
+		}
+		Map<Integer, String> newNames = new HashMap<>(names);
+		newNames.put(itemId, name);
+		return new PriceTable(version + 1, prices, newNames);
+	}
+
+	PriceTable withoutPrices(Collection<Integer> itemIds)
+	{
+		Map<Integer, Float> newPrices = null;
+		for (int itemId : itemIds)
+		{
+			if (prices.containsKey(itemId))
+			{
+				if (newPrices == null)
+				{
+					newPrices = new HashMap<>(prices);
+				}
+				newPrices.remove(itemId);
+			}
+		}
+		return newPrices == null ? this : new PriceTable(version + 1, newPrices, names);
+	}
+
+	PriceTable withPricesAndNames(Map<Integer, Float> newPrices, Map<Integer, String> newNames)
+	{
+		if (newPrices.isEmpty() && newNames.isEmpty())
+		{
+			return this;
+		}
+		Map<Integer, Float> mergedPrices = prices;
+		if (!newPrices.isEmpty())
+		{
+			mergedPrices = new HashMap<>(prices);
+			mergedPrices.putAll(newPrices);
+		}
+		Map<Integer, String> mergedNames = names;
+		if (!newNames.isEmpty())
+		{
+			mergedNames = new HashMap<>(names);
+			mergedNames.putAll(newNames);
+		}
+		return new PriceTable(version + 1, mergedPrices, mergedNames);
+	}
+
+	//all prices replaced at once, names are kept
+	PriceTable withAllPrices(Map<Integer, Float> newPrices)
+	{
+		return new PriceTable(version + 1, new HashMap<>(newPrices), names);
+	}
+}
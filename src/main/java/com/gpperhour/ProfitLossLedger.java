@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Profit/loss of a trip or session: final quantities minus initial quantities, valued at the cached prices.
+//Built with one merge pass over id sorted snapshots of both maps into parallel arrays that are reused between builds,
+//so summing gains/losses for a lot of trips doesn't create any LedgerItems.
+//Not thread safe, use one instance per thread.
+class ProfitLossLedger
+{
+	private static final int DEFAULT_CAPACITY = 32;
+
+	//sorted snapshots
+	private long[] initialEntries = new long[DEFAULT_CAPACITY];
+	private long[] finalEntries = new long[DEFAULT_CAPACITY];
+
+	//rows, items with the same name (noted/unnoted) share a row
+	private int size;
+	private int[] itemIds = new int[DEFAULT_CAPACITY];
+	private float[] qtys = new float[DEFAULT_CAPACITY];
+	private float[] prices = new float[DEFAULT_CAPACITY];
+	private String[] names = new String[DEFAULT_CAPACITY];
+	private final Map<String, Integer> rowsByName = new HashMap<>();
+
+	//rows left after filtering out quantities that round to zero
+	private int[] filteredRows = new int[DEFAULT_CAPACITY];
+	private int filteredCount;
+
+	private long totalGain;
+	private long totalLoss;
+
+	void build(ItemQtyMap initialQtys, ItemQtyMap finalQtys, PriceTable priceTable)
+	{
+		clear();
+		int initialCount = initialQtys.size();
+		int finalCount = finalQtys.size();
+		initialEntries = initialQtys.toSortedEntries(initialEntries);
+		finalEntries = finalQtys.toSortedEntries(finalEntries);
+
+		int i = 0;
+		int j = 0;
+		while (i < initialCount || j < finalCount)
+		{
+			int initialId = i < initialCount ? ItemQtyMap.entryItemId(initialEntries[i]) : Integer.MAX_VALUE;
+			int finalId = j < finalCount ? ItemQtyMap.entryItemId(finalEntries[j]) : Integer.MAX_VALUE;
+			int itemId;
+			float initialQty = 0f;
+			float qty = 0f;
+			if (i < initialCount && (j >= finalCount || initialId <= finalId))
+			{
+				itemId = initialId;
+				initialQty = ItemQtyMap.entryQty(initialEntries[i++]);
+				if (j < finalCount && finalId == initialId)
+				{
+					qty = ItemQtyMap.entryQty(finalEntries[j++]);
+				}
+			}
+			else
+			{
+				itemId = finalId;
+				qty = ItemQtyMap.entryQty(finalEntries[j++]);
+			}
+			addDifference(itemId, qty - initialQty, priceTable);
+		}
+
+		//filter out quantities less than round amount here!
+		for (int row = 0; row < size; ++row)
+		{
+			if (Math.abs(qtys[row]) > (GPPerHourPlugin.roundAmount / 2f))
+			{
+				filteredRows[filteredCount++] = row;
+				long value = getCombinedValue(row);
+				if (value > 0)
+				{
+					totalGain += value;
+				}
+				else
+				{
+					totalLoss += value;
+				}
+			}
+		}
+	}
+
+	private void addDifference(int itemId, float qtyDifference, PriceTable priceTable)
+	{
+		String name = priceTable.getName(itemId);
+		if (name == null)
+		{
+			return;
+		}
+		Float price = priceTable.getPrice(itemId);
+		if (price == null)
+		{
+			price = 1f;
+		}
+
+		Integer existingRow = rowsByName.get(name);
+		if (existingRow != null)
+		{
+			qtys[existingRow] += qtyDifference;
+		}
+		else if (price != 0)
+		{
+			ensureCapacity(size + 1);
+			itemIds[size] = itemId;
+			qtys[size] = qtyDifference;
+			prices[size] = price;
+			names[size] = name;
+			rowsByName.put(name, size);
+			size++;
+		}
+	}
+
+	private void clear()
+	{
+		Arrays.fill(names, 0, size, null);
+		size = 0;
+		filteredCount = 0;
+		rowsByName.clear();
+		totalGain = 0;
+		totalLoss = 0;
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= itemIds.length)
+		{
+			return;
+		}
+		int newCapacity = Math.max(capacity, itemIds.length * 2);
+		itemIds = Arrays.copyOf(itemIds, newCapacity);
+		qtys = Arrays.copyOf(qtys, newCapacity);
+		prices = Arrays.copyOf(prices, newCapacity);
+		names = Arrays.copyOf(names, newCapacity);
+		filteredRows = Arrays.copyOf(filteredRows, newCapacity);
+	}
+
+	private long getCombinedValue(int row)
+	{
+		return (long) (qtys[row] * prices[row]);
+	}
+
+	//Number of items in the ledger
+	int size()
+	{
+		return filteredCount;
+	}
+
+	boolean isEmpty()
+	{
+		return filteredCount == 0;
+	}
+
+	int getItemId(int index)
+	{
+		return itemIds[filteredRows[index]];
+	}
+
+	float getQty(int index)
+	{
+		return qtys[filteredRows[index]];
+	}
+
+	float getPrice(int index)
+	{
+		return prices[filteredRows[index]];
+	}
+
+	String getDescription(int index)
+	{
+		return names[filteredRows[index]];
+	}
+
+	long getTotalGain()
+	{
+		return totalGain;
+	}
+
+	//Negative or zero
+	long getTotalLoss()
+	{
+		return totalLoss;
+	}
+
+	List<LedgerItem> toLedgerItems()
+	{
+		List<LedgerItem> ledgerItems = new ArrayList<>(filteredCount);
+		for (int i = 0; i < filteredCount; ++i)
+		{
+			int row = filteredRows[i];
+			ledgerItems.add(new LedgerItem(names[row], qtys[row], prices[row], itemIds[row]));
+		}
+		return ledgerItems;
+	}
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+//Compact binary form of the data we persist (the saved trip and session history).
+//Every blob starts with a magic number, what kind of object it holds and the schema version it was written with.
+//Item quantity maps are written sorted by item id with varint id deltas, whole quantities as varints and only
+//fractional ones (charges spread over several items) as raw floats.
+//Anything that starts with '{' is the json written by older versions and is still read through gson.
+class SaveDataCodec
+{
+	private static final int MAGIC = 0x4750;
+	private static final byte KIND_TRIP = 1;
+	private static final byte KIND_SESSION = 2;
+	private static final byte KIND_TRIP_STATE = 3;
+	//bump when the layout changes, and keep reading the older versions
+	static final int SCHEMA_VERSION = 1;
+
+	private static final int FLAG_PAUSED = 1;
+	private static final int FLAG_ENDED = 1 << 1;
+
+	private SaveDataCodec()
+	{
+	}
+
+	static boolean isJson(byte[] data)
+	{
+		return data.length > 0 && data[0] == '{';
+	}
+
+	static byte[] encodeTrip(TripData trip) throws IOException
+	{
+		return encodeTrip(trip, KIND_TRIP);
+	}
+
+	//The saved trip's item quantities are rebuilt from the inventory when it's loaded, a journaled trip (which may
+	//already be completed) has to carry them.
+	static byte[] encodeTripState(TripData trip) throws IOException
+	{
+		return encodeTrip(trip, KIND_TRIP_STATE);
+	}
+
+	private static byte[] encodeTrip(TripData trip, byte kind) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		writeHeader(out, kind);
+		writeString(out, trip.identifier);
+		int flags = (trip.isPaused ? FLAG_PAUSED : 0) | (trip.runEndTime != null ? FLAG_ENDED : 0);
+		out.writeByte(flags);
+		writeVarLong(out, zigZag(trip.runStartTime));
+		if (trip.runEndTime != null)
+		{
+			writeVarLong(out, zigZag(trip.runEndTime));
+		}
+		writeVarLong(out, zigZag(trip.runtime));
+		writeQtyMap(out, trip.initialItemQtys);
+		writeQtyMap(out, trip.bankedItemQtys);
+		if (kind == KIND_TRIP_STATE)
+		{
+			writeQtyMap(out, trip.itemQtys);
+		}
+		return bytes.toByteArray();
+	}
+
+	static TripData decodeTrip(byte[] data, Gson gson) throws IOException
+	{
+		if (isJson(data))
+		{
+			return gson.fromJson(new String(data, StandardCharsets.UTF_8), TripData.class);
+		}
+		ByteBuffer in = ByteBuffer.wrap(data);
+		try
+		{
+			return readTrip(in, KIND_TRIP);
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new CorruptSaveDataException("Truncated trip data", e);
+		}
+		catch (IllegalArgumentException | NegativeArraySizeException e)
+		{
+			throw new CorruptSaveDataException("Malformed trip data", e);
+		}
+	}
+
+	static TripData decodeTripState(byte[] data) throws IOException
+	{
+		ByteBuffer in = ByteBuffer.wrap(data);
+		try
+		{
+			return readTrip(in, KIND_TRIP_STATE);
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new CorruptSaveDataException("Truncated trip data", e);
+		}
+		catch (IllegalArgumentException | NegativeArraySizeException e)
+		{
+			throw new CorruptSaveDataException("Malformed trip data", e);
+		}
+	}
+
+	private static TripData readTrip(ByteBuffer in, byte kind) throws IOException
+	{
+		readHeader(in, kind);
+		TripData trip = new TripData();
+		trip.identifier = readString(in);
+		int flags = in.get() & 0xFF;
+		trip.isPaused = (flags & FLAG_PAUSED) != 0;
+		trip.runStartTime = unZigZag(readVarLong(in));
+		if ((flags & FLAG_ENDED) != 0)
+		{
+			trip.runEndTime = unZigZag(readVarLong(in));
+		}
+		trip.runtime = unZigZag(readVarLong(in));
+		trip.initialItemQtys = readQtyMap(in);
+		trip.bankedItemQtys = readQtyMap(in);
+		if (kind == KIND_TRIP_STATE)
+		{
+			trip.itemQtys = readQtyMap(in);
+		}
+		return trip;
+	}
+
+	static byte[] encodeSession(SessionStats stats) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		writeHeader(out, KIND_SESSION);
+		writeString(out, stats.sessionID);
+		writeString(out, stats.sessionName);
+		writeVarLong(out, zigZag(stats.getSessionSaveTime()));
+		writeVarLong(out, zigZag(stats.getSessionRuntime()));
+		writeVarLong(out, zigZag(stats.getTotalGain()));
+		writeVarLong(out, zigZag(stats.getTotalLoss()));
+		writeVarLong(out, zigZag(stats.getNetTotal()));
+		writeVarLong(out, zigZag(stats.getTripCount()));
+		writeVarLong(out, zigZag(stats.getAvgTripDuration()));
+		writeQtyMap(out, stats.getInitialQtys());
+		writeQtyMap(out, stats.getQtys());
+		return bytes.toByteArray();
+	}
+
+	static SessionStats decodeSession(byte[] data, Gson gson) throws IOException
+	{
+		return decodeSession(data, gson, true);
+	}
+
+	//Everything but the item maps, which are most of the data. Json can't be read partially so it comes back whole.
+	static SessionStats decodeSessionSummary(byte[] data, Gson gson) throws IOException
+	{
+		return decodeSession(data, gson, false);
+	}
+
+	private static SessionStats decodeSession(byte[] data, Gson gson, boolean withQtys) throws IOException
+	{
+		if (isJson(data))
+		{
+			try
+			{
+				return gson.fromJson(new String(data, StandardCharsets.UTF_8), SessionStats.class);
+			}
+			catch (JsonParseException e)
+			{
+				throw new CorruptSaveDataException("Malformed session json", e);
+			}
+		}
+		ByteBuffer in = ByteBuffer.wrap(data);
+		try
+		{
+			return readSession(in, withQtys);
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new CorruptSaveDataException("Truncated session data", e);
+		}
+		catch (IllegalArgumentException | NegativeArraySizeException e)
+		{
+			throw new CorruptSaveDataException("Malformed session data", e);
+		}
+	}
+
+	//the maps are written last so a summary can stop before them
+	private static SessionStats readSession(ByteBuffer in, boolean withQtys) throws IOException
+	{
+		readHeader(in, KIND_SESSION);
+		String sessionID = readString(in);
+		String sessionName = readString(in);
+		SessionStats stats = new SessionStats(
+			unZigZag(readVarLong(in)),
+			unZigZag(readVarLong(in)),
+			unZigZag(readVarLong(in)),
+			unZigZag(readVarLong(in)),
+			unZigZag(readVarLong(in)),
+			(int) unZigZag(readVarLong(in)),
+			unZigZag(readVarLong(in)),
+			withQtys ? readQtyMap(in) : null,
+			withQtys ? readQtyMap(in) : null);
+		stats.sessionID = sessionID;
+		stats.sessionName = sessionName;
+		return stats;
+	}
+
+	private static void writeHeader(DataOutput out, byte kind) throws IOException
+	{
+		out.writeShort(MAGIC);
+		out.writeByte(kind);
+		writeVarLong(out, SCHEMA_VERSION);
+	}
+
+	private static void readHeader(ByteBuffer in, byte kind) throws IOException
+	{
+		if ((in.getShort() & 0xFFFF) != MAGIC)
+		{
+			throw new CorruptSaveDataException("Not GP Per Hour save data");
+		}
+		byte actualKind = in.get();
+		if (actualKind != kind)
+		{
+			throw new CorruptSaveDataException("Expected save data of kind " + kind + " but found " + actualKind);
+		}
+		long version = readVarLong(in);
+		if (version < 1)
+		{
+			throw new CorruptSaveDataException("Invalid save data version " + version);
+		}
+		//written by a newer version of the plugin, not damaged
+		if (version > SCHEMA_VERSION)
+		{
+			throw new IOException("Unsupported save data version " + version);
+		}
+	}
+
+	//count + 1 so null maps (from old json) survive the round trip
+	private static void writeQtyMap(DataOutput out, ItemQtyMap map) throws IOException
+	{
+		if (map == null)
+		{
+			writeVarLong(out, 0);
+			return;
+		}
+		long[] entries = map.toSortedEntries(null);
+		int count = map.size();
+		writeVarLong(out, count + 1);
+		long previousId = 0;
+		for (int i = 0; i < count; ++i)
+		{
+			int itemId = ItemQtyMap.entryItemId(entries[i]);
+			float qty = ItemQtyMap.entryQty(entries[i]);
+			//the first id can be negative, after that the ids only go up
+			long idDelta = i == 0 ? zigZag(itemId) : itemId - previousId;
+			previousId = itemId;
+			boolean whole = qty == (int) qty;
+			writeVarLong(out, (idDelta << 1) | (whole ? 0 : 1));
+			if (whole)
+			{
+				writeVarLong(out, zigZag((int) qty));
+			}
+			else
+			{
+				out.writeFloat(qty);
+			}
+		}
+	}
+
+	private static ItemQtyMap readQtyMap(ByteBuffer in) throws IOException
+	{
+		long countPlusOne = readVarLong(in);
+		if (countPlusOne == 0)
+		{
+			return null;
+		}
+		int count = (int) (countPlusOne - 1);
+		ItemQtyMap map = new ItemQtyMap(count);
+		long previousId = 0;
+		for (int i = 0; i < count; ++i)
+		{
+			long key = readVarLong(in);
+			long idDelta = key >>> 1;
+			int itemId = (int) (i == 0 ? unZigZag(idDelta) : previousId + idDelta);
+			previousId = itemId;
+			float qty = (key & 1) == 0 ? unZigZag(readVarLong(in)) : in.getFloat();
+			map.put(itemId, qty);
+		}
+		return map;
+	}
+
+	//length + 1 so null strings survive the round trip
+	private static void writeString(DataOutput out, String value) throws IOException
+	{
+		if (value == null)
+		{
+			writeVarLong(out, 0);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length + 1);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer in) throws IOException
+	{
+		long lengthPlusOne = readVarLong(in);
+		if (lengthPlusOne == 0)
+		{
+			return null;
+		}
+		byte[] bytes = new byte[(int) (lengthPlusOne - 1)];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	//unsigned LEB128, 7 bits per byte
+	private static void writeVarLong(DataOutput out, long value) throws IOException
+	{
+		while ((value & ~0x7FL) != 0)
+		{
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(ByteBuffer in) throws IOException
+	{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			int b = in.get() & 0xFF;
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new CorruptSaveDataException("Malformed varint");
+	}
+
+	private static long zigZag(long value)
+	{
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value)
+	{
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,531 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.google.gson.Gson;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+//SessionStore that appends every save and delete as a record to segment files, so saving writes one record no
+//matter how many sessions there are. An in memory index points each id at its latest record. It's written out on
+//close so opening only scans what was appended since, and segments get compacted once most of their bytes are dead.
+//Record layout: crc32 of the body, body length, then the body (type, id, payload encoded by SaveDataCodec).
+class SegmentedSessionStore implements SessionStore
+{
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String INDEX_FILE = "sessions.idx";
+	private static final String QUARANTINE_DIRECTORY = "quarantine";
+	private static final int INDEX_VERSION = 1;
+	private static final byte RECORD_PUT = 1;
+	private static final byte RECORD_DELETE = 2;
+	private static final int RECORD_HEADER_SIZE = 8;
+	static final long SEGMENT_SIZE = 1024 * 1024;
+	//not worth rewriting the segments until there's at least this much to reclaim
+	static final long COMPACTION_MIN_DEAD_BYTES = 256 * 1024;
+
+	@RequiredArgsConstructor
+	private static class Location
+	{
+		final int segment;
+		final long offset;
+		final int length;
+	}
+
+	@RequiredArgsConstructor
+	private static class Record
+	{
+		final byte type;
+		final String id;
+		final byte[] payload;
+		final int length;
+	}
+
+	private final File directory;
+	private final Gson gson;
+	//insertion ordered, so ids come out in the order they were first saved
+	private final LinkedHashMap<String, Location> index = new LinkedHashMap<>();
+	private long liveBytes;
+	//superseded records and tombstones, reclaimed by compaction
+	private long deadBytes;
+	private int activeSegment;
+	private RandomAccessFile activeFile;
+
+	private SegmentedSessionStore(File directory, Gson gson)
+	{
+		this.directory = directory;
+		this.gson = gson;
+	}
+
+	static SegmentedSessionStore open(File directory, Gson gson) throws IOException
+	{
+		if (!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Couldn't create session store directory " + directory);
+		}
+		SegmentedSessionStore store = new SegmentedSessionStore(directory, gson);
+		store.recover();
+		return store;
+	}
+
+	@Override
+	public synchronized List<String> getSessionIds()
+	{
+		return new ArrayList<>(index.keySet());
+	}
+
+	//only reading the record holds the lock, sessions can be decoded on several threads at once
+	@Override
+	public SessionStats load(String sessionId) throws IOException
+	{
+		byte[] payload = readPayload(sessionId);
+		return payload == null ? null : SaveDataCodec.decodeSession(payload, gson);
+	}
+
+	@Override
+	public SessionStats loadSummary(String sessionId) throws IOException
+	{
+		byte[] payload = readPayload(sessionId);
+		return payload == null ? null : SaveDataCodec.decodeSessionSummary(payload, gson);
+	}
+
+	private synchronized byte[] readPayload(String sessionId) throws IOException
+	{
+		Location location = index.get(sessionId);
+		if (location == null)
+		{
+			return null;
+		}
+		Record record;
+		if (location.segment == activeSegment)
+		{
+			record = readRecord(activeFile, location.offset);
+		}
+		else
+		{
+			try (RandomAccessFile file = new RandomAccessFile(segmentFile(location.segment), "r"))
+			{
+				record = readRecord(file, location.offset);
+			}
+		}
+		if (record == null)
+		{
+			throw new CorruptSaveDataException("Corrupt record for session " + sessionId + " in " + segmentFile(location.segment));
+		}
+		return record.payload;
+	}
+
+	@Override
+	public synchronized void save(SessionStats sessionStats) throws IOException
+	{
+		byte[] payload = SaveDataCodec.encodeSession(sessionStats);
+		writeRecord(RECORD_PUT, sessionStats.sessionID, payload);
+		activeFile.getChannel().force(false);
+		compactIfNeeded();
+	}
+
+	@Override
+	public synchronized void saveAll(Collection<SessionStats> sessions) throws IOException
+	{
+		if (sessions.isEmpty())
+		{
+			return;
+		}
+		for (SessionStats sessionStats : sessions)
+		{
+			writeRecord(RECORD_PUT, sessionStats.sessionID, SaveDataCodec.encodeSession(sessionStats));
+		}
+		activeFile.getChannel().force(false);
+		compactIfNeeded();
+	}
+
+	@Override
+	public synchronized void delete(String sessionId) throws IOException
+	{
+		if (!index.containsKey(sessionId))
+		{
+			return;
+		}
+		writeRecord(RECORD_DELETE, sessionId, new byte[0]);
+		activeFile.getChannel().force(false);
+		compactIfNeeded();
+	}
+
+	@Override
+	public synchronized void quarantine(String sessionId) throws IOException
+	{
+		Location location = index.get(sessionId);
+		if (location == null)
+		{
+			return;
+		}
+		File quarantineDirectory = new File(directory, QUARANTINE_DIRECTORY);
+		File quarantineFile = new File(quarantineDirectory, sessionId.replaceAll("[^A-Za-z0-9_-]", "_") + ".record");
+		try (RandomAccessFile file = new RandomAccessFile(segmentFile(location.segment), "r"))
+		{
+			//the raw record, it may not pass its checksum
+			byte[] record = new byte[location.length];
+			file.seek(location.offset);
+			file.readFully(record);
+			if (!quarantineDirectory.isDirectory() && !quarantineDirectory.mkdirs())
+			{
+				throw new IOException("Couldn't create " + quarantineDirectory);
+			}
+			Files.write(quarantineFile.toPath(), record);
+			log.warn("Quarantined unreadable session {} to {}", sessionId, quarantineFile);
+		}
+		catch (IOException e)
+		{
+			log.warn("Couldn't copy unreadable session " + sessionId + " to quarantine, dropping it", e);
+		}
+		delete(sessionId);
+	}
+
+	@Override
+	public synchronized void close()
+	{
+		try
+		{
+			writeIndex();
+			activeFile.close();
+		}
+		catch (IOException e)
+		{
+			log.error("Failed to close session store " + directory, e);
+		}
+	}
+
+	private void recover() throws IOException
+	{
+		List<Integer> segments = listSegments();
+		long indexedLength = readIndex(segments);
+		for (int segment : segments)
+		{
+			if (indexedLength < 0)
+			{
+				scanSegment(segment, 0);
+			}
+			else if (segment >= activeSegment)
+			{
+				//only records appended after the index was written need replaying
+				scanSegment(segment, segment == activeSegment ? indexedLength : 0);
+			}
+		}
+		activeSegment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+		activeFile = new RandomAccessFile(segmentFile(activeSegment), "rw");
+		compactIfNeeded();
+	}
+
+	private void scanSegment(int segment, long offset) throws IOException
+	{
+		try (RandomAccessFile file = new RandomAccessFile(segmentFile(segment), "rw"))
+		{
+			long length = file.length();
+			while (offset < length)
+			{
+				Record record = readRecord(file, offset);
+				if (record == null)
+				{
+					//torn write from a crash, cut it off so new records land right after the last good one
+					log.warn("Truncating corrupt session store tail of {} at {}", segmentFile(segment), offset);
+					file.setLength(offset);
+					break;
+				}
+				apply(record.type, record.id, new Location(segment, offset, record.length));
+				offset += record.length;
+			}
+		}
+	}
+
+	private void apply(byte type, String id, Location location)
+	{
+		Location previous = type == RECORD_PUT ? index.put(id, location) : index.remove(id);
+		if (previous != null)
+		{
+			liveBytes -= previous.length;
+			deadBytes += previous.length;
+		}
+		if (type == RECORD_PUT)
+		{
+			liveBytes += location.length;
+		}
+		else
+		{
+			deadBytes += location.length;
+		}
+	}
+
+	private void writeRecord(byte type, String id, byte[] payload) throws IOException
+	{
+		ByteArrayOutputStream bodyStream = new ByteArrayOutputStream(payload.length + id.length() + 3);
+		DataOutputStream out = new DataOutputStream(bodyStream);
+		out.writeByte(type);
+		out.writeUTF(id);
+		out.write(payload);
+		byte[] body = bodyStream.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(body, 0, body.length);
+
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + body.length);
+		record.putInt((int) crc.getValue());
+		record.putInt(body.length);
+		record.put(body);
+
+		if (activeFile.length() > 0 && activeFile.length() + record.capacity() > SEGMENT_SIZE)
+		{
+			startNextSegment();
+		}
+		long offset = activeFile.length();
+		activeFile.seek(offset);
+		activeFile.write(record.array());
+		apply(type, id, new Location(activeSegment, offset, record.capacity()));
+	}
+
+	//Forced before it's closed, save only forces the segment it ends in and compaction deletes the old segments
+	//trusting that every copy before the last segment is already on disk.
+	private void startNextSegment() throws IOException
+	{
+		activeFile.getChannel().force(false);
+		activeFile.close();
+		activeSegment++;
+		activeFile = new RandomAccessFile(segmentFile(activeSegment), "rw");
+	}
+
+	//null if the record is cut off or doesn't match its checksum
+	private static Record readRecord(RandomAccessFile file, long offset) throws IOException
+	{
+		long available = file.length() - offset;
+		if (available < RECORD_HEADER_SIZE)
+		{
+			return null;
+		}
+		file.seek(offset);
+		int crc = file.readInt();
+		int bodyLength = file.readInt();
+		if (bodyLength <= 0 || bodyLength > available - RECORD_HEADER_SIZE)
+		{
+			return null;
+		}
+		byte[] body = new byte[bodyLength];
+		file.readFully(body);
+		CRC32 check = new CRC32();
+		check.update(body, 0, bodyLength);
+		if ((int) check.getValue() != crc)
+		{
+			return null;
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+		byte type = in.readByte();
+		String id = in.readUTF();
+		byte[] payload = new byte[in.available()];
+		in.readFully(payload);
+		return new Record(type, id, payload, RECORD_HEADER_SIZE + bodyLength);
+	}
+
+	private void compactIfNeeded() throws IOException
+	{
+		if (deadBytes >= COMPACTION_MIN_DEAD_BYTES && deadBytes > liveBytes)
+		{
+			compact();
+		}
+	}
+
+	//Copies the live records into fresh segments after the current ones, then drops the old segments.
+	//The copies are all forced before anything is deleted, and the old segments go oldest first, so a crash part way
+	//through leaves the newest old segments followed by complete copies and replaying them gives the same index.
+	//The directory itself isn't synced, so new segment files are only as durable as the filesystem makes them.
+	private void compact() throws IOException
+	{
+		log.debug("Compacting session store {}, {} live bytes {} dead bytes", directory, liveBytes, deadBytes);
+		List<Integer> oldSegments = listSegments();
+		Map<String, Location> live = new LinkedHashMap<>(index);
+		Map<Integer, RandomAccessFile> oldFiles = new HashMap<>();
+		startNextSegment();
+		index.clear();
+		liveBytes = 0;
+		deadBytes = 0;
+		try
+		{
+			for (Map.Entry<String, Location> entry : live.entrySet())
+			{
+				Location location = entry.getValue();
+				RandomAccessFile file = oldFiles.get(location.segment);
+				if (file == null)
+				{
+					file = new RandomAccessFile(segmentFile(location.segment), "r");
+					oldFiles.put(location.segment, file);
+				}
+				Record record = readRecord(file, location.offset);
+				if (record == null)
+				{
+					log.error("Dropping corrupt record for session {} while compacting", entry.getKey());
+					continue;
+				}
+				writeRecord(RECORD_PUT, entry.getKey(), record.payload);
+			}
+			activeFile.getChannel().force(false);
+		}
+		finally
+		{
+			for (RandomAccessFile file : oldFiles.values())
+			{
+				file.close();
+			}
+		}
+		for (int segment : oldSegments)
+		{
+			Files.deleteIfExists(segmentFile(segment).toPath());
+		}
+		writeIndex();
+	}
+
+	private void writeIndex() throws IOException
+	{
+		File temp = new File(directory, INDEX_FILE + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp))))
+		{
+			out.writeInt(INDEX_VERSION);
+			out.writeInt(activeSegment);
+			out.writeLong(activeFile.length());
+			out.writeLong(deadBytes);
+			out.writeInt(index.size());
+			for (Map.Entry<String, Location> entry : index.entrySet())
+			{
+				Location location = entry.getValue();
+				out.writeUTF(entry.getKey());
+				out.writeInt(location.segment);
+				out.writeLong(location.offset);
+				out.writeInt(location.length);
+			}
+		}
+		Files.move(temp.toPath(), new File(directory, INDEX_FILE).toPath(),
+			StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	//Loads the index written on the last close. Returns how far into its active segment it covers, or -1 if it's
+	//missing or doesn't match the segments on disk and everything has to be scanned.
+	private long readIndex(List<Integer> segments)
+	{
+		File file = new File(directory, INDEX_FILE);
+		if (!file.isFile())
+		{
+			return -1;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			if (in.readInt() != INDEX_VERSION)
+			{
+				return -1;
+			}
+			int segment = in.readInt();
+			long length = in.readLong();
+			long dead = in.readLong();
+			int count = in.readInt();
+			if (!segments.contains(segment) || segmentFile(segment).length() < length)
+			{
+				return -1;
+			}
+			Map<String, Location> entries = new LinkedHashMap<>();
+			long live = 0;
+			for (int i = 0; i < count; ++i)
+			{
+				String id = in.readUTF();
+				Location location = new Location(in.readInt(), in.readLong(), in.readInt());
+				if (!segments.contains(location.segment))
+				{
+					return -1;
+				}
+				entries.put(id, location);
+				live += location.length;
+			}
+			index.putAll(entries);
+			liveBytes = live;
+			deadBytes = dead;
+			activeSegment = segment;
+			return length;
+		}
+		catch (IOException e)
+		{
+			log.warn("Couldn't read session store index, rebuilding it from the segments", e);
+			return -1;
+		}
+	}
+
+	private List<Integer> listSegments()
+	{
+		List<Integer> segments = new ArrayList<>();
+		String[] names = directory.list();
+		if (names == null)
+		{
+			return segments;
+		}
+		for (String name : names)
+		{
+			if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+			{
+				try
+				{
+					segments.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+				}
+				catch (NumberFormatException e)
+				{
+					log.warn("Ignoring unexpected file in session store: {}", name);
+				}
+			}
+		}
+		Collections.sort(segments);
+		return segments;
+	}
+
+	private File segmentFile(int segment)
+	{
+		return new File(directory, String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+	}
+}
@@ -28,19 +28,20 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
-import java.awt.GridBagConstraints;
-import java.awt.GridBagLayout;
-import java.awt.Insets;
+import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
@@ -48,12 +49,12 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.Scrollable;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.MatteBorder;
 
 import net.runelite.api.gameval.ItemID;
 import net.runelite.client.callback.ClientThread;
-import net.runelite.client.game.ItemManager;
 import net.runelite.client.input.KeyListener;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.FontManager;
@@ -74,25 +75,37 @@ public class SessionHistoryPanel extends JPanel
 	private static final String tripCountLabelPrefix = "Trip Count: ";
 	private static final String avgTripDurationLabelPrefix = "Avg Trip Time: ";
 	private static final Color borderColor = new Color(57, 57, 57);
+	private static final int ROW_GAP = 10;
+	//rows materialized past each edge of the viewport so fast scrolling doesn't flash empty space
+	private static final int OVERSCAN_ROWS = 2;
+	//bail out if measured heights keep changing which rows are visible
+	private static final int MAX_BIND_PASSES = 3;
 
 	private final GPPerHourConfig config;
 	private final GPPerHourPlugin plugin;
-	private final ItemManager itemManager;
+	private final ItemImageCache itemImageCache;
 	private final ClientThread clientThread;
 	private final SessionManager sessionManager;
-	GridBagConstraints constraints = new GridBagConstraints();
 
-	private final List<SessionHistoryPanelData> historyPanels = new LinkedList<>();
+	//filtered and sorted sessions, only the rows inside the viewport get a panel
+	private List<SessionStats> sessions = new ArrayList<>();
+	//rowTops[i] is the y of row i, rowTops[sessions.size()] is the height of the whole list
+	private int[] rowTops = new int[1];
+	//collapsed rows all share one height, expanded ones are measured the first time they're shown
+	private int collapsedHeight;
+	private final Map<SessionStats, Integer> expandedHeights = new IdentityHashMap<>();
+	private final Map<Integer, SessionHistoryPanelData> boundPanels = new HashMap<>();
+	private final List<SessionHistoryPanelData> panelPool = new ArrayList<>();
 	private final IconTextField searchBar = new IconTextField();
-	private final JPanel historyPanelContainer = new JPanel();
+	private final HistoryList historyList = new HistoryList();
 	private final JScrollPane resultsWrapper;
 
-	SessionHistoryPanel(GPPerHourPlugin plugin, GPPerHourConfig config, ItemManager itemManager,
+	SessionHistoryPanel(GPPerHourPlugin plugin, GPPerHourConfig config, ItemImageCache itemImageCache,
 			ClientThread clientThread, SessionManager sessionManager)
 	{
 		this.plugin = plugin;
 		this.config = config;
-		this.itemManager = itemManager;
+		this.itemImageCache = itemImageCache;
 		this.clientThread = clientThread;
 		this.sessionManager = sessionManager;
 
@@ -129,27 +142,23 @@ public class SessionHistoryPanel extends JPanel
 		});
 		searchBar.addClearListener(() -> redrawPanels(true));
 
-		historyPanelContainer.setLayout(new GridBagLayout());
-		historyPanelContainer.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		historyList.setLayout(null);
+		historyList.setBackground(ColorScheme.DARK_GRAY_COLOR);
 
-		constraints.fill = GridBagConstraints.HORIZONTAL;
-		constraints.weightx = 1;
-		constraints.gridx = 0;
-		constraints.gridy = 0;
-		constraints.insets = new Insets(0, 0, 10, 0); // Add vertical gap
-
-		/* This panel wraps the results panel and guarantees the scrolling behaviour */
-		JPanel wrapper = new JPanel(new BorderLayout());
-		wrapper.setBackground(ColorScheme.DARK_GRAY_COLOR);
-		wrapper.add(historyPanelContainer, BorderLayout.NORTH);
+		//every row without details has the same height, so measure it once up front
+		SessionHistoryPanelData measured = acquirePanel();
+		measured.detailsPanel.setVisible(false);
+		collapsedHeight = measured.masterPanel.getPreferredSize().height;
+		releasePanel(measured);
 
 		/* The results wrapper, this scrolling panel wraps the results container */
-		resultsWrapper = new JScrollPane(wrapper);
+		resultsWrapper = new JScrollPane(historyList);
 		resultsWrapper.setBackground(ColorScheme.DARK_GRAY_COLOR);
 		resultsWrapper.getVerticalScrollBar().setPreferredSize(new Dimension(12, 0));
 		resultsWrapper.getVerticalScrollBar().setBorder(new EmptyBorder(0, 5, 0, 0));
 		resultsWrapper.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
 		resultsWrapper.setVisible(true);
+		resultsWrapper.getViewport().addChangeListener(e -> onViewportChanged());
 
 		container.add(searchBar, BorderLayout.NORTH);
 		container.add(resultsWrapper, BorderLayout.CENTER);
@@ -168,37 +177,207 @@ public class SessionHistoryPanel extends JPanel
 
 	void updateSessions()
 	{
-		List<SessionStats> sessions = sessionManager.sessionHistory;
-		if (!searchBar.getText().isEmpty())
+		String filter = searchBar.getText().toLowerCase();
+		List<SessionStats> filtered = new ArrayList<>();
+		for (SessionStats stats : sessionManager.sessionHistory)
+		{
+			if (filter.isEmpty() || stats.getSessionName().toLowerCase().contains(filter))
+			{
+				filtered.add(stats);
+			}
+		}
+		filtered.sort(Comparator.comparingLong(o -> -o.getSessionSaveTime()));
+		sessions = filtered;
+		//collapsed rows are re-measured when expanded again, so only keep heights that are in use
+		expandedHeights.keySet().removeIf(stats -> !stats.showDetails);
+
+		//the sessions or what they show may have changed, so every visible row gets rendered again
+		for (SessionHistoryPanelData panelData : boundPanels.values())
+		{
+			releasePanel(panelData);
+		}
+		boundPanels.clear();
+		computeRowTops();
+		bindVisibleRows();
+
+		historyList.revalidate();
+		historyList.repaint();
+	}
+
+	private void onViewportChanged()
+	{
+		if (bindVisibleRows())
+		{
+			historyList.revalidate();
+		}
+		else
+		{
+			historyList.doLayout();
+		}
+		historyList.repaint();
+	}
+
+	//Gives a panel to each row in (or near) the viewport, recycling the panels of rows that scrolled away.
+	//Returns true if a row's measured height changed the size of the list.
+	private boolean bindVisibleRows()
+	{
+		boolean heightsChanged = false;
+		for (int pass = 0; pass < MAX_BIND_PASSES; ++pass)
+		{
+			Rectangle view = resultsWrapper.getViewport().getViewRect();
+			int first = Math.max(0, rowAt(view.y) - OVERSCAN_ROWS);
+			int last = Math.min(sessions.size() - 1, rowAt(view.y + view.height) + OVERSCAN_ROWS);
+
+			Iterator<Map.Entry<Integer, SessionHistoryPanelData>> it = boundPanels.entrySet().iterator();
+			while (it.hasNext())
+			{
+				Map.Entry<Integer, SessionHistoryPanelData> entry = it.next();
+				if (entry.getKey() < first || entry.getKey() > last)
+				{
+					releasePanel(entry.getValue());
+					it.remove();
+				}
+			}
+
+			boolean passChanged = false;
+			for (int i = first; i <= last; ++i)
+			{
+				SessionHistoryPanelData panelData = boundPanels.get(i);
+				if (panelData == null)
+				{
+					panelData = acquirePanel();
+					boundPanels.put(i, panelData);
+					renderHistoryPanel(sessions.get(i), panelData);
+				}
+				SessionStats stats = sessions.get(i);
+				if (stats.showDetails)
+				{
+					int height = panelData.masterPanel.getPreferredSize().height;
+					Integer previous = expandedHeights.put(stats, height);
+					passChanged |= previous == null || previous != height;
+				}
+			}
+			if (!passChanged)
+			{
+				break;
+			}
+			computeRowTops();
+			heightsChanged = true;
+		}
+		return heightsChanged;
+	}
+
+	private void computeRowTops()
+	{
+		int[] tops = new int[sessions.size() + 1];
+		for (int i = 0; i < sessions.size(); ++i)
+		{
+			tops[i + 1] = tops[i] + rowHeight(i) + ROW_GAP;
+		}
+		rowTops = tops;
+	}
+
+	private int rowHeight(int index)
+	{
+		SessionStats stats = sessions.get(index);
+		if (!stats.showDetails)
 		{
-			sessions = filterSessions(sessions, searchBar.getText());
+			return collapsedHeight;
 		}
-		sessions = sessions.stream().sorted(Comparator.comparingLong(o -> -o.getSessionSaveTime()))
-				.collect(Collectors.toList());
-		int sessionIndex;
-		for (sessionIndex = 0; sessionIndex < sessions.size(); ++sessionIndex)
+		return expandedHeights.getOrDefault(stats, collapsedHeight);
+	}
+
+	//index of the row containing y, clamped to the list
+	private int rowAt(int y)
+	{
+		int low = 0;
+		int high = sessions.size() - 1;
+		while (low < high)
 		{
-			ensurePanelCount(sessionIndex + 1);
-			renderHistoryPanel(sessions.get(sessionIndex), historyPanels.get(sessionIndex));
+			int mid = (low + high + 1) >>> 1;
+			if (rowTops[mid] <= y)
+			{
+				low = mid;
+			}
+			else
+			{
+				high = mid - 1;
+			}
 		}
-		for (int i = sessionIndex; i < historyPanels.size(); ++i)
+		return low;
+	}
+
+	private SessionHistoryPanelData acquirePanel()
+	{
+		if (!panelPool.isEmpty())
 		{
-			historyPanels.get(i).masterPanel.setVisible(false);
+			return panelPool.remove(panelPool.size() - 1);
 		}
+		SessionHistoryPanelData panelData = buildHistoryPanel();
+		historyList.add(panelData.masterPanel);
+		return panelData;
+	}
 
-		repaint();
-		revalidate();
+	private void releasePanel(SessionHistoryPanelData panelData)
+	{
+		panelData.masterPanel.setVisible(false);
+		panelData.stats = null;
+		panelPool.add(panelData);
 	}
 
-	public List<SessionStats> filterSessions(List<SessionStats> sessionStats, String textToFilter)
+	//Only holds the panels of visible rows and lays them out at their row's offset in the full list
+	private class HistoryList extends JPanel implements Scrollable
 	{
-		final String textToFilterLower = textToFilter.toLowerCase();
-		return sessionStats.stream().filter(i -> i.getSessionName().toLowerCase().contains(textToFilterLower))
-				.collect(Collectors.toList());
+		@Override
+		public Dimension getPreferredSize()
+		{
+			return new Dimension(0, rowTops[sessions.size()]);
+		}
+
+		@Override
+		public void doLayout()
+		{
+			for (Map.Entry<Integer, SessionHistoryPanelData> entry : boundPanels.entrySet())
+			{
+				int index = entry.getKey();
+				entry.getValue().masterPanel.setBounds(0, rowTops[index], getWidth(), rowHeight(index));
+			}
+		}
+
+		@Override
+		public Dimension getPreferredScrollableViewportSize()
+		{
+			return getPreferredSize();
+		}
+
+		@Override
+		public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction)
+		{
+			return 16;
+		}
+
+		@Override
+		public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction)
+		{
+			return visibleRect.height;
+		}
+
+		@Override
+		public boolean getScrollableTracksViewportWidth()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean getScrollableTracksViewportHeight()
+		{
+			return false;
+		}
 	}
 
 	void renderHistoryPanel(SessionStats stats, SessionHistoryPanelData panelData)
 	{
+		panelData.stats = stats;
 		panelData.masterPanel.setVisible(true);
 		panelData.nameField.setData(stats.sessionName, (String newName) ->
 		{
@@ -219,13 +398,22 @@ public class SessionHistoryPanel extends JPanel
 		gpPerHourCoinsImage /= 100;//divide by 100 to get more variation in coins image
 		getCoinsImage(gpPerHourCoinsImage, (BufferedImage image) ->
 		{
-			panelData.coinsLabel.setIcon(new ImageIcon(image));
+			//the panel may have been recycled for another row before the image loaded
+			if (panelData.stats == stats)
+			{
+				panelData.coinsLabel.setIcon(new ImageIcon(image));
+			}
 		}, stats);
 
 		panelData.detailsPanel.setVisible(stats.showDetails);
 
 		if (stats.showDetails)
 		{
+			//the loot grid fills in once the session's items are loaded
+			if (!stats.hasQtys())
+			{
+				sessionManager.loadSessionQtys(stats);
+			}
 			panelData.gpPerHourLabel.setText(htmlLabel(gpPerHourLabelPrefix, gpPerHour));
 			panelData.netTotalLabel.setText(htmlLabel(netTotalLabelPrefix, UI.formatQuantity(stats.getNetTotal(), false)));
 			panelData.totalGainsLabel
@@ -241,10 +429,8 @@ public class SessionHistoryPanel extends JPanel
 				panelData.avgTripDurationLabel
 						.setText(htmlLabel(avgTripDurationLabelPrefix, UI.formatTime(stats.getAvgTripDuration())));
 			}
-			UI.updateLootGrid(
-					UI.sortLedger(
-							GPPerHourPlugin.getProfitLossLedger(stats.getInitialQtys(), stats.getQtys())),
-					panelData.sessionLootPanelData, itemManager, config, 0);
+			UI.updateLootGrid(plugin.getAnalyticsFrame().getHistoryLedger(stats),
+					panelData.sessionLootPanelData, itemImageCache, config, 0);
 		}
 
 		panelData.onDetailsPressed = () ->
@@ -264,17 +450,6 @@ public class SessionHistoryPanel extends JPanel
 		};
 	}
 
-	void ensurePanelCount(int size)
-	{
-		while (historyPanels.size() < size)
-		{
-			constraints.gridy = historyPanels.size();
-			SessionHistoryPanelData data = buildHistoryPanel();
-			this.historyPanelContainer.add(data.masterPanel, constraints);
-			historyPanels.add(data);
-		}
-	}
-
 	private class SessionHistoryPanelData
 	{
 		final JPanel detailsPanel;
@@ -295,6 +470,8 @@ public class SessionHistoryPanel extends JPanel
 		private final UI.LootPanelData sessionLootPanelData = new UI.LootPanelData();
 		Runnable onDetailsPressed;
 		Runnable onDeletePressed;
+		//session this panel is currently showing
+		SessionStats stats;
 
 		void setTripCountAndDurationVisible(boolean visible)
 		{
@@ -407,7 +584,7 @@ public class SessionHistoryPanel extends JPanel
 	{
 		if (stats.coinsImage == null)
 		{
-			AsyncBufferedImage asyncImage = itemManager.getImage(ItemID.COINS, quantity, false);
+			AsyncBufferedImage asyncImage = itemImageCache.getImage(ItemID.COINS, quantity, false);
 			Runnable resizeImage = ()->
 			{
 				stats.coinsImage = ImageUtil.resizeImage(asyncImage, 24, 24);
@@ -24,19 +24,33 @@
  */
 package com.gpperhour;
 
-import java.lang.reflect.Type;
+import java.io.File;
+import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.google.gson.Gson;
 
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
+
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,23 +61,84 @@ public class SessionManager
 	private final GPPerHourPlugin plugin;
 	private final GPPerHourConfig config;
 	private final ScheduledExecutorService executor;
+	private final ClientThread clientThread;
 	private final Gson gson;
 
+	//read by the analytics worker while the client thread adds and removes trips
 	@Getter
-	private final Map<String, TripData> activeTrips = new HashMap<>();
+	private final Map<String, TripData> activeTrips = new ConcurrentHashMap<>();
 	@Getter
-	private String activeSessionStartId;
+	private volatile String activeSessionStartId;
 	@Getter
-	private String activeSessionEndId;
+	private volatile String activeSessionEndId;
+	//bumped when trips are added or removed
+	private volatile int tripsVersion = 0;
+	//bumped when a trip completes
+	private volatile int tripStateVersion = 0;
+
+	//parses saved sessions, bounded so a big history doesn't take every core while the client is loading
+	private static final int SESSION_LOADER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+	private final ThreadPoolExecutor sessionLoader = createSessionLoader();
+
+	//Trip events are written in order on their own thread, so replaying the journal when a profile loads only queues
+	//behind pending journal writes and not behind the session history on the executor.
+	private final ExecutorService journalWriter = Executors.newSingleThreadExecutor(runnable ->
+	{
+		Thread thread = new Thread(runnable, "gpperhour-trip-journal");
+		thread.setDaemon(true);
+		return thread;
+	});
+	//null until the current profile's journal has been replayed
+	private volatile TripJournal tripJournal = null;
+	//the profile whose journal should be open, a replay queued for an earlier one is skipped
+	private volatile String journalProfileKey = null;
+	//roughly what's been appended since the journal was last rewritten
+	private volatile long journalBytes = 0;
+	private static final String JOURNAL_FILE = "trips.journal";
+	static final long JOURNAL_COMPACTION_BYTES = 1024 * 1024;
+	static final long CHECKPOINT_INTERVAL_MS = 30000;
+	private long lastCheckpointTime = 0;
+
+	private final TripRangeIndex tripIndex = new TripRangeIndex();
+	private int indexTripsVersion = -1;
+	private int indexTripStateVersion = -1;
+	//quantities of the active range, see updateRangeQtys
+	private int completedIndexVersion = -1;
+	private int completedStart = -1;
+	private int completedEndPosition = -1;
+	private ItemQtyMap completedInitialQtys;
+	private ItemQtyMap completedQtys;
+	private int liveRangeEnd = -1;
+	private int liveTripsQtyVersion = -1;
+	private long liveGains;
+	private long liveLosses;
+	private ItemQtyMap rangeInitialQtys;
+	private ItemQtyMap rangeQtys;
 
-	public SessionManager(GPPerHourPlugin plugin, GPPerHourConfig config, ScheduledExecutorService executor, Gson gson)
+	public SessionManager(GPPerHourPlugin plugin, GPPerHourConfig config, ScheduledExecutorService executor,
+		ClientThread clientThread, Gson gson)
 	{
 		this.plugin = plugin;
 		this.config = config;
 		this.executor = executor;
+		this.clientThread = clientThread;
 		this.gson = gson;
 	}
 
+	private static ThreadPoolExecutor createSessionLoader()
+	{
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(SESSION_LOADER_THREADS, SESSION_LOADER_THREADS,
+			30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable ->
+		{
+			Thread thread = new Thread(runnable, "gpperhour-session-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		//nothing to do once the history is loaded
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
 	void refreshSessionTracking()
 	{
 		if (isTracking())
@@ -111,71 +186,56 @@ public class SessionManager
 		}
 	}
 
-	private List<TripData> getSortedTrips()
+	List<TripData> getSortedTrips()
 	{
 		return activeTrips.values().stream().sorted(Comparator.comparingLong(o -> o.runStartTime))
 			.collect(Collectors.toList());
 	}
 
 	SessionStats getActiveSessionStats()
+	{
+		long timerStart = PerfTimers.start();
+		SessionStats sessionStats = computeActiveSessionStats();
+		PerfTimers.stop(PerfTimers.Timer.ACTIVE_SESSION_STATS, timerStart);
+		return sessionStats;
+	}
+
+	private synchronized SessionStats computeActiveSessionStats()
 	{
 		if (activeSessionStartId == null)
 		{
 			return null;
 		}
-		List<TripData> runDataSorted = getSortedTrips();
-
-		long gains = 0;
-		long losses = 0;
-		long tripDurationSum = 0;
-		long totalPauseTime = 0;
-		boolean foundStart = false;
-		int tripCount = 0;
-		Map<Integer, Float> initialQtys = new HashMap<>();
-		Map<Integer, Float> qtys = new HashMap<>();
-		for (TripData runData : runDataSorted)
+		refreshTripIndex();
+		int startPosition = tripIndex.indexOf(activeSessionStartId);
+		if (startPosition == -1)
 		{
-			foundStart |= runData.identifier.equals(activeSessionStartId);
-			if (!foundStart)
-			{
-				continue;
-			}
-			for (Integer initialId : runData.initialItemQtys.keySet())
-			{
-				initialQtys.merge(initialId, runData.initialItemQtys.get(initialId), Float::sum);
-			}
-			for (Integer itemId : runData.itemQtys.keySet())
-			{
-				qtys.merge(itemId, runData.itemQtys.get(itemId), Float::sum);
-			}
-
-			List<LedgerItem> ledger = GPPerHourPlugin.getProfitLossLedger(runData.initialItemQtys, runData.itemQtys);
-			for (LedgerItem item : ledger)
-			{
-				long value = item.getCombinedValue();
-				if (value > 0)
-				{
-					gains += value;
-				}
-				else
-				{
-					losses += value;
-				}
-			}
-			tripDurationSum += runData.getRuntime();
-			totalPauseTime += (runData.getEndTime()-runData.runStartTime) - runData.getRuntime();
-			tripCount++;
+			log.error("couldn't find start session");
+			return null;
+		}
+		int endPosition = tripIndex.indexOf(activeSessionEndId);
+		// an end before the start was never reached, the session runs to the last trip
+		if (endPosition < startPosition)
+		{
+			endPosition = tripIndex.size() - 1;
+		}
+		updateRangeQtys(startPosition, endPosition);
 
-			if (activeSessionEndId != null && activeSessionEndId.equals(runData.identifier))
+		long gains = tripIndex.getGains(startPosition, endPosition) + liveGains;
+		long losses = tripIndex.getLosses(startPosition, endPosition) + liveLosses;
+		long tripDurationSum = tripIndex.getRuntime(startPosition, endPosition);
+		long totalPauseTime = tripIndex.getPauseTime(startPosition, endPosition);
+		for (int position : tripIndex.getInProgressPositions())
+		{
+			if (position >= startPosition && position <= endPosition)
 			{
-				break;
+				TripData runData = tripIndex.get(position);
+				tripDurationSum += runData.getRuntime();
+				totalPauseTime += TripRangeIndex.getPauseTime(runData);
 			}
 		}
-		if (!foundStart)
-		{
-			log.error("couldn't find start session");
-			return null;
-		}
+		int tripCount = endPosition - startPosition + 1;
+
 		long sessionRuntime = 0;
 		if (config.ignoreBankTime())
 		{
@@ -190,7 +250,108 @@ public class SessionManager
 		long netTotal = gains + losses;
 		long avgTripDuration = (long) (tripDurationSum / ((float) tripCount));
 
-		return new SessionStats(getSessionEndTime(), sessionRuntime, gains, losses, netTotal, tripCount, avgTripDuration, initialQtys, qtys);
+		return new SessionStats(getSessionEndTime(), sessionRuntime, gains, losses, netTotal, tripCount, avgTripDuration, rangeInitialQtys, rangeQtys);
+	}
+
+	//Only re-sorts when trips are added or removed (or repriced), completed trips are point updates.
+	private void refreshTripIndex()
+	{
+		if (indexTripsVersion != tripsVersion)
+		{
+			indexTripsVersion = tripsVersion;
+			indexTripStateVersion = tripStateVersion;
+			tripIndex.rebuild(activeTrips.values());
+		}
+		else if (indexTripStateVersion != tripStateVersion)
+		{
+			indexTripStateVersion = tripStateVersion;
+			tripIndex.refreshCompletedTrips();
+		}
+	}
+
+	//Quantity maps of the range and the totals of its in progress trips. Completed trips up to the first in progress
+	//one are summed once per range, the rest only when an in progress trip's quantities were rebuilt.
+	//Maps are summed in trip order so the floats come out the same no matter how the range was reached.
+	private void updateRangeQtys(int startPosition, int endPosition)
+	{
+		int completedEnd = endPosition;
+		for (int position : tripIndex.getInProgressPositions())
+		{
+			if (position >= startPosition && position <= completedEnd)
+			{
+				completedEnd = position - 1;
+			}
+		}
+		if (completedIndexVersion != tripIndex.getVersion() || completedStart != startPosition || completedEndPosition != completedEnd)
+		{
+			completedIndexVersion = tripIndex.getVersion();
+			completedStart = startPosition;
+			completedEndPosition = completedEnd;
+			//never cleared in place, the previous maps may still be referenced by handed out SessionStats
+			completedInitialQtys = new ItemQtyMap();
+			completedQtys = new ItemQtyMap();
+			for (int position = startPosition; position <= completedEnd; ++position)
+			{
+				TripData runData = tripIndex.get(position);
+				completedInitialQtys.addAll(runData.initialItemQtys);
+				completedQtys.addAll(runData.itemQtys);
+			}
+			liveRangeEnd = -1;
+		}
+
+		int liveQtyVersion = 0;
+		for (int position = completedEnd + 1; position <= endPosition; ++position)
+		{
+			liveQtyVersion += tripIndex.get(position).qtyVersion;
+		}
+		if (liveRangeEnd == endPosition && liveTripsQtyVersion == liveQtyVersion)
+		{
+			return;
+		}
+		liveRangeEnd = endPosition;
+		liveTripsQtyVersion = liveQtyVersion;
+
+		liveGains = 0;
+		liveLosses = 0;
+		if (completedEnd == endPosition)
+		{
+			rangeInitialQtys = completedInitialQtys;
+			rangeQtys = completedQtys;
+			return;
+		}
+		rangeInitialQtys = new ItemQtyMap();
+		rangeInitialQtys.addAll(completedInitialQtys);
+		rangeQtys = new ItemQtyMap();
+		rangeQtys.addAll(completedQtys);
+		for (int position = completedEnd + 1; position <= endPosition; ++position)
+		{
+			TripData runData = tripIndex.get(position);
+			rangeInitialQtys.addAll(runData.initialItemQtys);
+			rangeQtys.addAll(runData.itemQtys);
+			//completed trips are already in the index
+			if (runData.isInProgress())
+			{
+				ProfitLossLedger ledger = GPPerHourPlugin.buildProfitLossLedger(runData);
+				liveGains += ledger.getTotalGain();
+				liveLosses += ledger.getTotalLoss();
+			}
+		}
+	}
+
+	//adding or removing trips re-sorts the index
+	private void onTripsChanged()
+	{
+		tripsVersion++;
+	}
+
+	//every trip of the session is revalued with the refreshed prices at once
+	void onPricesRefreshed(PriceTable prices)
+	{
+		for (TripData runData : activeTrips.values())
+		{
+			runData.priceTable = prices;
+		}
+		onTripsChanged();
 	}
 
 	long getSessionStartTime()
@@ -229,6 +390,7 @@ public class SessionManager
 				setSessionEnd(id);
 			}
 		}
+		journalSessionRange();
 	}
 
 	void setSessionEnd(String id)
@@ -244,6 +406,7 @@ public class SessionManager
 				setSessionStart(id);
 			}
 		}
+		journalSessionRange();
 	}
 
 	TripData getSessionStartTrip()
@@ -275,6 +438,7 @@ public class SessionManager
 	void deleteAllTrips()
 	{
 		List<TripData> allTrips = new LinkedList<>(activeTrips.values());
+		onTripsChanged();
 		activeSessionStartId = null;
 		activeSessionEndId = null;
 		for(TripData trip : allTrips)
@@ -288,6 +452,7 @@ public class SessionManager
 				activeTrips.remove(trip.identifier);
 			}
 		}
+		compactJournal();
 	}
 
 	//Deletes all trips that started before the specified time.
@@ -306,6 +471,7 @@ public class SessionManager
 	void deleteTrip(String id)
 	{
 		activeTrips.remove(id);
+		onTripsChanged();
 		if (activeSessionStartId == id)
 		{
 			if (activeTrips.size() == 0)
@@ -321,6 +487,14 @@ public class SessionManager
 		{
 			activeSessionEndId = null;
 		}
+		try
+		{
+			appendToJournal(TripJournal.tripDeleted(id), false);
+		}
+		catch (IOException e)
+		{
+			log.error("Failed to journal deleted trip " + id, e);
+		}
 	}
 
 	void onTripStarted(TripData runData)
@@ -330,40 +504,55 @@ public class SessionManager
 			return;
 		}
 		activeTrips.put(runData.identifier, runData);
+		onTripsChanged();
 		if (activeSessionStartId == null)
 		{
 			activeSessionStartId = runData.identifier;
 		}
+		journalTrip(TripJournal.EVENT_TRIP_STARTED, runData, true);
 	}
 
 	void onTripCompleted(TripData runData)
 	{
+		//the trip's totals move into the index, valued with the prices it ended with
+		if (runData.priceTable == null)
+		{
+			runData.priceTable = GPPerHourPlugin.getPriceTable();
+		}
+		tripStateVersion++;
 		if (!isTracking())
 		{
 			return;
 		}
 		// don't care about trips where nothing happened, can remove it from the history
-		if (!tripHadChange(runData.initialItemQtys, runData.itemQtys))
+		if (!tripHadChange(runData))
 		{
 			log.debug("nothing changed, ignoring trip");
 			deleteTrip(runData.identifier);
 			return;
 		}
+		journalTrip(TripJournal.EVENT_TRIP_COMPLETED, runData, true);
+		if (journalBytes > JOURNAL_COMPACTION_BYTES)
+		{
+			compactJournal();
+		}
 	}
 
-	boolean tripHadChange(Map<Integer, Float> tripStart, Map<Integer, Float> tripEnd)
+	boolean tripHadChange(TripData runData)
 	{
-		List<LedgerItem> ledger = GPPerHourPlugin.getProfitLossLedger(tripStart, tripEnd);
-		return !ledger.isEmpty();
+		return !GPPerHourPlugin.buildProfitLossLedger(runData).isEmpty();
 	}
 
 	List<SessionStats> sessionHistory = new LinkedList<>();
-	List<String> savedSessionIdentifiers = null;
-	boolean sessionHistoryDirty;
+	//null until the current profile's sessions have been loaded
+	private volatile SessionStore sessionStore = null;
+	volatile boolean sessionHistoryDirty;
+	//summaries whose item maps are being parsed
+	private final Set<SessionStats> loadingQtys = ConcurrentHashMap.newKeySet();
 
 	void saveNewSession(String name)
 	{
-		if (savedSessionIdentifiers == null)
+		if (sessionStore == null)
 		{
 			log.error("can't save session, hasn't loaded sessions yet.");
 			return;
@@ -378,12 +567,11 @@ public class SessionManager
 			statsToSave.sessionName = name;
 			statsToSave.sessionID = UUID.randomUUID().toString();
 			sessionHistory.add(statsToSave);
-
-			String json = gson.toJson(statsToSave);
-			plugin.saveData(GPPerHourConfig.getSessionKey(statsToSave.sessionID), json);
-
-			savedSessionIdentifiers.add(statsToSave.sessionID);
-			saveSessionIdentifiers();
+			if (writeSession(statsToSave))
+			{
+				//everything the journal could recover is in the session now
+				clientThread.invokeLater(this::compactJournal);
+			}
 			sessionHistoryDirty = true;
 		});
 	}
@@ -397,15 +585,27 @@ public class SessionManager
 		}
 		executor.execute(()->
 		{
-			String json = gson.toJson(sessionStats);
-			plugin.saveData( GPPerHourConfig.getSessionKey(sessionStats.sessionID), json);
+			//a summary has to be completed first or saving it would drop its items
+			if (!sessionStats.hasQtys())
+			{
+				try
+				{
+					loadQtys(sessionStore, sessionStats);
+				}
+				catch (Exception e)
+				{
+					log.error("Failed to load session " + sessionStats.sessionID + ", not saving it", e);
+					return;
+				}
+			}
+			writeSession(sessionStats);
 			sessionHistoryDirty = true;
 		});
 	}
 
 	void deleteSession(SessionStats sessionStats)
 	{
-		if (savedSessionIdentifiers == null)
+		if (sessionStore == null)
 		{
 			log.error("can't delete session, hasn't loaded sessions yet.");
 			return;
@@ -417,60 +617,437 @@ public class SessionManager
 		executor.execute(()->
 		{
 			sessionHistory.remove(sessionStats);
-			plugin.deleteData(GPPerHourConfig.getSessionKey(sessionStats.sessionID));
-
-			savedSessionIdentifiers.remove(sessionStats.sessionID);
-			saveSessionIdentifiers();
+			try
+			{
+				sessionStore.delete(sessionStats.sessionID);
+			}
+			catch (IOException e)
+			{
+				log.error("Failed to delete session " + sessionStats.sessionID, e);
+			}
 			sessionHistoryDirty = true;
 		});
 	}
 
-	void saveSessionIdentifiers()
+	private boolean writeSession(SessionStats sessionStats)
 	{
-		String json = gson.toJson(savedSessionIdentifiers);
-		plugin.saveData(GPPerHourConfig.sessionIdentifiersKey, json);
+		try
+		{
+			sessionStore.save(sessionStats);
+			return true;
+		}
+		catch (IOException e)
+		{
+			log.error("Failed to save session " + sessionStats.sessionID, e);
+			return false;
+		}
 	}
 
-	void reloadSessions()
+	//Only the summaries are read up front, spread over the loader threads, so the history tab can show the list
+	//right away. Item maps are parsed when a session is expanded (loadSessionQtys).
+	void reloadSessions(String profileKey)
 	{
+		//the trips being cleared for the new profile are still in the old profile's journal
+		closeJournal();
 		sessionHistory.clear();
-		savedSessionIdentifiers = null;
+		SessionStore previousStore = sessionStore;
+		sessionStore = null;
 		executor.execute(()->
 		{
-			Type listType = new com.google.gson.reflect.TypeToken<List<String>>() {}.getType();
-			String keysJSON = plugin.readData(GPPerHourConfig.sessionIdentifiersKey);
-			try 
+			if (previousStore != null)
 			{
-				savedSessionIdentifiers = gson.fromJson(keysJSON, listType);
+				previousStore.close();
 			}
-			catch(Exception e)
+			//opened by a reload that was still queued when this one was requested
+			SessionStore queuedStore = sessionStore;
+			if (queuedStore != null && queuedStore != previousStore)
 			{
-				log.error("Failed to load session identifiers from json: " + keysJSON, e);
+				queuedStore.close();
+				sessionHistory.clear();
+			}
+			SessionStore store;
+			try
+			{
+				store = SegmentedSessionStore.open(getSessionStoreDirectory(profileKey), gson);
+				SessionStoreMigrator.migrate(plugin, gson, store);
+			}
+			catch (IOException e)
+			{
+				log.error("Failed to open the session store for " + profileKey, e);
 				return;
 			}
-			if (savedSessionIdentifiers == null)
+			List<String> sessionIdentifiers = store.getSessionIds();
+			List<Future<SessionStats>> summaries = new ArrayList<>(sessionIdentifiers.size());
+			for (String sessionIdentifier : sessionIdentifiers)
 			{
-				savedSessionIdentifiers = new LinkedList<>();
+				summaries.add(sessionLoader.submit(() -> store.loadSummary(sessionIdentifier)));
 			}
-			for (String sessionIdentifier : savedSessionIdentifiers)
+			for (int i = 0; i < sessionIdentifiers.size(); ++i)
 			{
-				String json = plugin.readData(GPPerHourConfig.getSessionKey(sessionIdentifier));
-				if	(json == null)
+				try
 				{
-					continue;
+					SessionStats sessionStats = summaries.get(i).get();
+					if (sessionStats != null)
+					{
+						sessionHistory.add(sessionStats);
+					}
 				}
-				try 
+				catch (InterruptedException e)
 				{
-					SessionStats sessionStats = gson.fromJson(json, SessionStats.class);
-					sessionHistory.add(sessionStats);
+					Thread.currentThread().interrupt();
+					return;
 				}
-				catch(Exception e)
+				catch (ExecutionException e)
 				{
-					log.error("Failed to load session data from json: " + json, e);
-					return;
+					//one bad session shouldn't keep the rest from loading
+					log.error("Failed to load session " + sessionIdentifiers.get(i), e.getCause());
+					if (e.getCause() instanceof CorruptSaveDataException)
+					{
+						quarantineSession(store, sessionIdentifiers.get(i));
+					}
 				}
 			}
+			sessionStore = store;
 			sessionHistoryDirty = true;
 		});
 	}
+
+	//Parses the item maps of a summary in the background, the history refreshes when they're in
+	void loadSessionQtys(SessionStats sessionStats)
+	{
+		SessionStore store = sessionStore;
+		if (store == null || sessionStats.hasQtys() || !loadingQtys.add(sessionStats))
+		{
+			return;
+		}
+		sessionLoader.execute(() ->
+		{
+			try
+			{
+				loadQtys(store, sessionStats);
+				sessionHistoryDirty = true;
+			}
+			catch (CorruptSaveDataException e)
+			{
+				log.error("Failed to load session " + sessionStats.sessionID, e);
+				executor.execute(() ->
+				{
+					sessionHistory.remove(sessionStats);
+					quarantineSession(store, sessionStats.sessionID);
+					sessionHistoryDirty = true;
+				});
+			}
+			catch (Exception e)
+			{
+				//left without its items and the history isn't refreshed for it, so it's only tried again the next
+				//time the history is redrawn rather than in a loop
+				log.error("Failed to load session " + sessionStats.sessionID, e);
+			}
+			finally
+			{
+				loadingQtys.remove(sessionStats);
+			}
+		});
+	}
+
+	private static void loadQtys(SessionStore store, SessionStats sessionStats) throws IOException
+	{
+		SessionStats stored = store.load(sessionStats.sessionID);
+		//deleted in the meantime
+		if (stored == null)
+		{
+			return;
+		}
+		sessionStats.setQtys(stored.getInitialQtys(), stored.getQtys());
+	}
+
+	private static void quarantineSession(SessionStore store, String sessionIdentifier)
+	{
+		try
+		{
+			store.quarantine(sessionIdentifier);
+		}
+		catch (IOException e)
+		{
+			log.error("Failed to quarantine session " + sessionIdentifier, e);
+		}
+	}
+
+	void shutDown()
+	{
+		closeJournal();
+		journalWriter.shutdown();
+		//after any reload that's still queued, it submits to the loader and opens the store to close
+		executor.execute(() ->
+		{
+			SessionStore store = sessionStore;
+			sessionStore = null;
+			if (store != null)
+			{
+				store.close();
+			}
+			sessionLoader.shutdown();
+		});
+	}
+
+	//Called every tick, journals the in progress trip at most every CHECKPOINT_INTERVAL_MS while it's changing
+	void checkpointTrip(TripData runData)
+	{
+		if (tripJournal == null || runData == null || !runData.isInProgress() || activeTrips.get(runData.identifier) != runData)
+		{
+			return;
+		}
+		long now = System.currentTimeMillis();
+		if (now - lastCheckpointTime < CHECKPOINT_INTERVAL_MS)
+		{
+			return;
+		}
+		lastCheckpointTime = now;
+		journalTrip(TripJournal.EVENT_CHECKPOINT, runData, false);
+	}
+
+	//Opens and replays the profile's journal on the journal thread, onReplayed gets what it had on that thread.
+	//The trips are put back with recoverTrips and recoverSessionRange on the client thread.
+	void replayJournal(String profileKey, Consumer<TripJournal.Replay> onReplayed)
+	{
+		journalProfileKey = profileKey;
+		journalWriter.execute(() ->
+		{
+			if (!profileKey.equals(journalProfileKey))
+			{
+				return;
+			}
+			TripJournal.Replay replay;
+			try
+			{
+				replay = openJournal(profileKey);
+			}
+			catch (IOException e)
+			{
+				log.error("Failed to replay the trip journal for " + profileKey, e);
+				return;
+			}
+			if (replay != null)
+			{
+				onReplayed.accept(replay);
+			}
+		});
+	}
+
+	//Puts back the completed trips of the journal, for when the client went down before the session was saved.
+	//Returns the trip that should be active: currentTrip, unless the journal has a newer checkpoint of it or knows
+	//it was already completed. Null means it was completed and a new one should be started. Completed trips are
+	//valued with the current table, so the names and prices of their items have to be loaded first.
+	TripData recoverTrips(TripJournal.Replay replay, TripData currentTrip)
+	{
+		//the profile changed since it was replayed
+		if (replay.journal != tripJournal)
+		{
+			return currentTrip;
+		}
+		boolean currentTripCompleted = false;
+		TripData journaledTrip = null;
+		int recovered = 0;
+		for (TripData trip : replay.trips.values())
+		{
+			if (trip.isInProgress())
+			{
+				journaledTrip = trip;
+				continue;
+			}
+			currentTripCompleted |= trip.identifier.equals(currentTrip.identifier);
+			if (isTracking())
+			{
+				trip.priceTable = GPPerHourPlugin.getPriceTable();
+				activeTrips.put(trip.identifier, trip);
+				recovered++;
+			}
+		}
+
+		TripData activeTrip = currentTrip;
+		if (journaledTrip != null && (currentTripCompleted || currentTrip.isFirstRun
+			|| (journaledTrip.identifier.equals(currentTrip.identifier) && journaledTrip.runtime > currentTrip.runtime)))
+		{
+			activeTrip = journaledTrip;
+		}
+		else if (currentTripCompleted)
+		{
+			activeTrip = null;
+		}
+		if (activeTrip != currentTrip)
+		{
+			//startTracking adds the one taking its place
+			activeTrips.remove(currentTrip.identifier, currentTrip);
+		}
+		if (recovered > 0 || activeTrip != currentTrip)
+		{
+			onTripsChanged();
+			tripStateVersion++;
+			log.debug("Recovered {} trips from the trip journal", recovered);
+		}
+		return activeTrip;
+	}
+
+	//After recoverTrips and the active trip is tracked. Ends with rewriting the journal, which drops the checkpoints
+	//and deleted trips.
+	void recoverSessionRange(TripJournal.Replay replay)
+	{
+		if (replay.journal != tripJournal)
+		{
+			return;
+		}
+		activeSessionStartId = isActiveTrip(replay.sessionStartId) ? replay.sessionStartId
+			: (activeTrips.isEmpty() ? null : getSortedTrips().get(0).identifier);
+		activeSessionEndId = isActiveTrip(replay.sessionEndId) ? replay.sessionEndId : null;
+		compactJournal();
+	}
+
+	private boolean isActiveTrip(String id)
+	{
+		return id != null && activeTrips.containsKey(id);
+	}
+
+	//journal thread
+	private TripJournal.Replay openJournal(String profileKey) throws IOException
+	{
+		TripJournal journal = TripJournal.open(new File(getSessionStoreDirectory(profileKey), JOURNAL_FILE));
+		TripJournal.Replay replay;
+		try
+		{
+			replay = journal.replay();
+		}
+		catch (IOException e)
+		{
+			journal.close();
+			throw e;
+		}
+		tripJournal = journal;
+		journalBytes = 0;
+		//the profile changed while it was being replayed, the next one's replay is queued behind this
+		if (!profileKey.equals(journalProfileKey))
+		{
+			tripJournal = null;
+			journal.close();
+			return null;
+		}
+		return replay;
+	}
+
+	private void closeJournal()
+	{
+		journalProfileKey = null;
+		TripJournal journal = tripJournal;
+		tripJournal = null;
+		if (journal != null)
+		{
+			journalWriter.execute(journal::close);
+		}
+	}
+
+	//only trip boundaries are synced, everything in between can be rebuilt from the saved trip
+	private void journalTrip(byte type, TripData runData, boolean sync)
+	{
+		if (tripJournal == null)
+		{
+			return;
+		}
+		try
+		{
+			appendToJournal(TripJournal.tripEvent(type, runData), sync);
+		}
+		catch (IOException e)
+		{
+			log.error("Failed to journal trip " + runData.identifier, e);
+		}
+	}
+
+	private void journalSessionRange()
+	{
+		if (tripJournal == null)
+		{
+			return;
+		}
+		try
+		{
+			appendToJournal(TripJournal.sessionRange(activeSessionStartId, activeSessionEndId), false);
+		}
+		catch (IOException e)
+		{
+			log.error("Failed to journal the session range", e);
+		}
+	}
+
+	private void appendToJournal(TripJournal.Event event, boolean sync)
+	{
+		TripJournal journal = tripJournal;
+		if (journal == null)
+		{
+			return;
+		}
+		journalBytes += event.size();
+		journalWriter.execute(() ->
+		{
+			try
+			{
+				journal.append(event, sync);
+			}
+			catch (IOException e)
+			{
+				log.error("Failed to append to the trip journal", e);
+			}
+		});
+	}
+
+	//Rewrites the journal as just the current trips and session range. The snapshot is encoded on the client thread,
+	//which changes the in progress trip, and queued from there, so events queued before it are already in the trips
+	//and events queued after it are appended to the new file.
+	private void compactJournal()
+	{
+		if (tripJournal == null)
+		{
+			return;
+		}
+		clientThread.invoke(() ->
+		{
+			TripJournal journal = tripJournal;
+			if (journal == null)
+			{
+				return;
+			}
+			List<TripJournal.Event> events = new ArrayList<>();
+			try
+			{
+				for (TripData trip : getSortedTrips())
+				{
+					events.add(TripJournal.tripEvent(trip.isInProgress() ? TripJournal.EVENT_TRIP_STARTED
+						: TripJournal.EVENT_TRIP_COMPLETED, trip));
+				}
+				events.add(TripJournal.sessionRange(activeSessionStartId, activeSessionEndId));
+			}
+			catch (IOException e)
+			{
+				log.error("Failed to encode the trip journal snapshot", e);
+				return;
+			}
+			journalBytes = 0;
+			journalWriter.execute(() ->
+			{
+				try
+				{
+					journal.rewrite(events);
+				}
+				catch (IOException e)
+				{
+					log.error("Failed to compact the trip journal", e);
+				}
+			});
+		});
+	}
+
+	//sessions are per RuneScape profile, like the config keys they used to be stored in
+	private static File getSessionStoreDirectory(String profileKey)
+	{
+		File sessionsDirectory = new File(new File(RuneLite.RUNELITE_DIR, "gpperhour"), "sessions");
+		return new File(sessionsDirectory, profileKey.replaceAll("[^A-Za-z0-9_-]", "_"));
+	}
 }
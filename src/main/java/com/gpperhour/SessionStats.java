@@ -25,11 +25,8 @@
 package com.gpperhour;
 
 import java.awt.image.BufferedImage;
-import java.util.Map;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
-@RequiredArgsConstructor
 @Getter
 //Stores data from a 'session' which is a collection of 'trips'
 class SessionStats
@@ -43,8 +40,34 @@ class SessionStats
 	private final long netTotal;
 	private final int tripCount;
 	private final long avgTripDuration;
-	private final Map<Integer, Float> initialQtys;
-	private final Map<Integer, Float> qtys;
+	//null for sessions loaded as a summary until their item maps are needed, see SessionManager.loadSessionQtys
+	private volatile ItemQtyMap initialQtys;
+	private volatile ItemQtyMap qtys;
+
+	SessionStats(long sessionSaveTime, long sessionRuntime, long totalGain, long totalLoss, long netTotal, int tripCount,
+		long avgTripDuration, ItemQtyMap initialQtys, ItemQtyMap qtys)
+	{
+		this.sessionSaveTime = sessionSaveTime;
+		this.sessionRuntime = sessionRuntime;
+		this.totalGain = totalGain;
+		this.totalLoss = totalLoss;
+		this.netTotal = netTotal;
+		this.tripCount = tripCount;
+		this.avgTripDuration = avgTripDuration;
+		this.initialQtys = initialQtys;
+		this.qtys = qtys;
+	}
+
+	boolean hasQtys()
+	{
+		return initialQtys != null && qtys != null;
+	}
+
+	void setQtys(ItemQtyMap initialQtys, ItemQtyMap qtys)
+	{
+		this.initialQtys = initialQtys;
+		this.qtys = qtys;
+	}
 
 	//ui state (this could probably be done without having view and model code merged but it would be a lot of work)
 	transient boolean showDetails;
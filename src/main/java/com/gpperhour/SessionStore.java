@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+//Persistent storage for saved sessions, keyed by SessionStats.sessionID.
+//Must be thread safe, sessions are written from the plugin's executor while the session loader threads read them.
+interface SessionStore
+{
+	//Ids of every stored session, oldest save first
+	List<String> getSessionIds();
+
+	//null if no session is stored under the id, CorruptSaveDataException if the stored copy is damaged
+	SessionStats load(String sessionId) throws IOException;
+
+	//Like load but without the item maps, see SaveDataCodec.decodeSessionSummary
+	SessionStats loadSummary(String sessionId) throws IOException;
+
+	//Adds the session or replaces the stored copy of it
+	void save(SessionStats sessionStats) throws IOException;
+
+	//Like save for each of them, but only synced to disk once at the end
+	void saveAll(Collection<SessionStats> sessions) throws IOException;
+
+	void delete(String sessionId) throws IOException;
+
+	//Moves a session that can't be read out of the way so it's kept for inspection but no longer loaded
+	void quarantine(String sessionId) throws IOException;
+
+	void close();
+}
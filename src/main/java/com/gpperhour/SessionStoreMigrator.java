@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.google.gson.Gson;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+//Moves sessions saved by older versions (one profile config key per session plus a list of ids) into a SessionStore.
+//The config keys are only removed once every session made it into the store, so an interrupted migration just
+//runs again next time and overwrites what it already copied.
+class SessionStoreMigrator
+{
+	static void migrate(GPPerHourPlugin plugin, Gson gson, SessionStore store) throws IOException
+	{
+		String keysJSON = plugin.readData(GPPerHourConfig.sessionIdentifiersKey);
+		if (keysJSON == null)
+		{
+			return;
+		}
+		Type listType = new com.google.gson.reflect.TypeToken<List<String>>() {}.getType();
+		List<String> sessionIdentifiers;
+		try
+		{
+			sessionIdentifiers = gson.fromJson(keysJSON, listType);
+		}
+		catch(Exception e)
+		{
+			log.error("Failed to load session identifiers from json: " + keysJSON, e);
+			return;
+		}
+		if (sessionIdentifiers == null)
+		{
+			sessionIdentifiers = new LinkedList<>();
+		}
+
+		List<String> migrated = new LinkedList<>();
+		List<String> failed = new LinkedList<>();
+		List<SessionStats> sessions = new ArrayList<>();
+		for (String sessionIdentifier : sessionIdentifiers)
+		{
+			String json = plugin.readData(GPPerHourConfig.getSessionKey(sessionIdentifier));
+			if (json == null)
+			{
+				continue;
+			}
+			SessionStats sessionStats;
+			try
+			{
+				sessionStats = gson.fromJson(json, SessionStats.class);
+			}
+			catch(Exception e)
+			{
+				log.error("Failed to migrate session data from json: " + json, e);
+				failed.add(sessionIdentifier);
+				continue;
+			}
+			//a stored "null", nothing to move but its key can go
+			if (sessionStats == null)
+			{
+				migrated.add(sessionIdentifier);
+				continue;
+			}
+			sessionStats.sessionID = sessionIdentifier;
+			sessions.add(sessionStats);
+			migrated.add(sessionIdentifier);
+		}
+		//one sync for the whole history
+		store.saveAll(sessions);
+
+		for (String sessionIdentifier : migrated)
+		{
+			plugin.deleteData(GPPerHourConfig.getSessionKey(sessionIdentifier));
+		}
+		if (failed.isEmpty())
+		{
+			plugin.deleteData(GPPerHourConfig.sessionIdentifiersKey);
+		}
+		else
+		{
+			//leave the ones we couldn't read where they are rather than losing them
+			plugin.saveData(GPPerHourConfig.sessionIdentifiersKey, gson.toJson(failed));
+		}
+		log.debug("Migrated {} sessions out of the profile config", migrated.size());
+	}
+}
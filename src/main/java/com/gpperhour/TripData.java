@@ -25,9 +25,7 @@
 package com.gpperhour;
 
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.LinkedList;
-import java.util.Map;
 
 //Data for a single 'trip'
 public class TripData
@@ -39,9 +37,20 @@ public class TripData
     long runtime = 0;
     boolean isPaused = false;
 
-    Map<Integer, Float> initialItemQtys = new HashMap<>();
-    Map<Integer, Float> bankedItemQtys = new HashMap<>();
-    transient Map<Integer, Float> itemQtys = new HashMap<>();
+    // initialItemQtys and itemQtys are replaced rather than modified so the analytics worker can read them
+    volatile ItemQtyMap initialItemQtys = new ItemQtyMap();
+    ItemQtyMap bankedItemQtys = new ItemQtyMap();
+    transient volatile ItemQtyMap itemQtys = new ItemQtyMap();
+    // bumped whenever initialItemQtys or itemQtys are rebuilt
+    transient int qtyVersion = 0;
+
+    // the prices the trip was last valued with, kept once it's completed
+    transient volatile PriceTable priceTable = null;
+
+    // profit/loss totals cached by TripRangeIndex, valid while summaryPriceVersion matches the table's version
+    transient int summaryPriceVersion = -1;
+    transient long summaryGains = 0;
+    transient long summaryLosses = 0;
 
     boolean isInProgress()
     {
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+//Append only log of what happens to the trips of the active session (started, checkpointed, completed, deleted and
+//the session's start and end), replayed when the profile is loaded so a crash doesn't take the unsaved session with
+//it. Only trip boundaries are forced to disk, a checkpoint lost with the OS is made up by the saved trip.
+//Record layout: crc32 of the body, body length, then the body (event type, payload). Not thread safe, SessionManager
+//only touches it from its journal thread.
+class TripJournal
+{
+	static final byte EVENT_TRIP_STARTED = 1;
+	static final byte EVENT_CHECKPOINT = 2;
+	static final byte EVENT_TRIP_COMPLETED = 3;
+	static final byte EVENT_TRIP_DELETED = 4;
+	static final byte EVENT_SESSION_RANGE = 5;
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	//encoded on the thread that changed the trips, so the journal thread writes a consistent snapshot
+	@RequiredArgsConstructor
+	static class Event
+	{
+		final byte type;
+		final byte[] payload;
+
+		int size()
+		{
+			return RECORD_HEADER_SIZE + 1 + payload.length;
+		}
+	}
+
+	//what the journal had when it was opened
+	@RequiredArgsConstructor
+	static class Replay
+	{
+		final TripJournal journal;
+		//in the order they were started
+		final Map<String, TripData> trips = new LinkedHashMap<>();
+		String sessionStartId;
+		String sessionEndId;
+	}
+
+	private final File file;
+	private RandomAccessFile journalFile;
+
+	private TripJournal(File file, RandomAccessFile journalFile)
+	{
+		this.file = file;
+		this.journalFile = journalFile;
+	}
+
+	static TripJournal open(File file) throws IOException
+	{
+		File directory = file.getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Couldn't create trip journal directory " + directory);
+		}
+		return new TripJournal(file, new RandomAccessFile(file, "rw"));
+	}
+
+	static Event tripEvent(byte type, TripData trip) throws IOException
+	{
+		return new Event(type, SaveDataCodec.encodeTripState(trip));
+	}
+
+	static Event tripDeleted(String tripId) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+		new DataOutputStream(bytes).writeUTF(tripId);
+		return new Event(EVENT_TRIP_DELETED, bytes.toByteArray());
+	}
+
+	static Event sessionRange(String startId, String endId) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+		DataOutputStream out = new DataOutputStream(bytes);
+		writeNullableUTF(out, startId);
+		writeNullableUTF(out, endId);
+		return new Event(EVENT_SESSION_RANGE, bytes.toByteArray());
+	}
+
+	Replay replay() throws IOException
+	{
+		Replay replay = new Replay(this);
+		long offset = 0;
+		long length = journalFile.length();
+		while (offset < length)
+		{
+			int recordLength = readRecord(offset, replay);
+			if (recordLength < 0)
+			{
+				//torn write from a crash, cut it off so new events land right after the last good one
+				log.warn("Truncating corrupt trip journal tail of {} at {}", file, offset);
+				journalFile.setLength(offset);
+				break;
+			}
+			offset += recordLength;
+		}
+		journalFile.seek(journalFile.length());
+		return replay;
+	}
+
+	void append(Event event, boolean sync) throws IOException
+	{
+		//closed by a profile switch while the event was queued
+		if (journalFile == null)
+		{
+			return;
+		}
+		journalFile.write(frame(event));
+		if (sync)
+		{
+			journalFile.getChannel().force(false);
+		}
+	}
+
+	//Replaces the journal with just these events. The file is swapped in whole, a crash leaves the old or the new one.
+	void rewrite(List<Event> events) throws IOException
+	{
+		if (journalFile == null)
+		{
+			return;
+		}
+		File temp = new File(file.getPath() + ".tmp");
+		try (RandomAccessFile out = new RandomAccessFile(temp, "rw"))
+		{
+			out.setLength(0);
+			for (Event event : events)
+			{
+				out.write(frame(event));
+			}
+			out.getChannel().force(false);
+		}
+		//can't be replaced while it's open on windows
+		journalFile.close();
+		try
+		{
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			journalFile = new RandomAccessFile(file, "rw");
+			journalFile.seek(journalFile.length());
+		}
+	}
+
+	void close()
+	{
+		if (journalFile == null)
+		{
+			return;
+		}
+		try
+		{
+			journalFile.close();
+		}
+		catch (IOException e)
+		{
+			log.error("Failed to close trip journal " + file, e);
+		}
+		journalFile = null;
+	}
+
+	private static byte[] frame(Event event)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(event.type);
+		crc.update(event.payload, 0, event.payload.length);
+		ByteBuffer record = ByteBuffer.allocate(event.size());
+		record.putInt((int) crc.getValue());
+		record.putInt(1 + event.payload.length);
+		record.put(event.type);
+		record.put(event.payload);
+		return record.array();
+	}
+
+	//the length of the record, or -1 if it's cut off or doesn't match its checksum
+	private int readRecord(long offset, Replay replay) throws IOException
+	{
+		long available = journalFile.length() - offset;
+		if (available < RECORD_HEADER_SIZE)
+		{
+			return -1;
+		}
+		journalFile.seek(offset);
+		int crc = journalFile.readInt();
+		int bodyLength = journalFile.readInt();
+		if (bodyLength <= 0 || bodyLength > available - RECORD_HEADER_SIZE)
+		{
+			return -1;
+		}
+		byte[] body = new byte[bodyLength];
+		journalFile.readFully(body);
+		CRC32 check = new CRC32();
+		check.update(body, 0, bodyLength);
+		if ((int) check.getValue() != crc)
+		{
+			return -1;
+		}
+		byte[] payload = new byte[bodyLength - 1];
+		System.arraycopy(body, 1, payload, 0, payload.length);
+		try
+		{
+			apply(body[0], payload, replay);
+		}
+		catch (IOException e)
+		{
+			//intact but unreadable (written by a newer version), the events around it still count
+			log.warn("Skipping unreadable trip journal event at " + offset + " of " + file, e);
+		}
+		return RECORD_HEADER_SIZE + bodyLength;
+	}
+
+	private static void apply(byte type, byte[] payload, Replay replay) throws IOException
+	{
+		switch (type)
+		{
+			case EVENT_TRIP_STARTED:
+			case EVENT_CHECKPOINT:
+			case EVENT_TRIP_COMPLETED:
+				TripData trip = SaveDataCodec.decodeTripState(payload);
+				replay.trips.put(trip.identifier, trip);
+				break;
+			case EVENT_TRIP_DELETED:
+				replay.trips.remove(new DataInputStream(new ByteArrayInputStream(payload)).readUTF());
+				break;
+			case EVENT_SESSION_RANGE:
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+				replay.sessionStartId = readNullableUTF(in);
+				replay.sessionEndId = readNullableUTF(in);
+				break;
+			default:
+				throw new IOException("Unknown trip journal event " + type);
+		}
+	}
+
+	private static void writeNullableUTF(DataOutputStream out, String value) throws IOException
+	{
+		out.writeBoolean(value != null);
+		if (value != null)
+		{
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readNullableUTF(DataInputStream in) throws IOException
+	{
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+//Write-behind saving of the active trip. The trip is encoded on the calling thread, so the bytes are a consistent
+//snapshot the client thread can't change underneath, and written later on the executor. Saves that come in quick
+//succession (login and loading screens fire plenty of GameStateChanged) collapse into one write of the newest
+//snapshot, writes are at least MIN_WRITE_INTERVAL_MS apart, and a trip identical to what was last written is skipped.
+class TripPersister
+{
+	static final long MIN_WRITE_INTERVAL_MS = 5000;
+
+	@RequiredArgsConstructor
+	private static class Snapshot
+	{
+		final String profileKey;
+		final byte[] data;
+	}
+
+	private final ScheduledExecutorService executor;
+	//(profile key, encoded trip)
+	private final BiConsumer<String, String> writer;
+	private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	private volatile long lastWriteTime = 0;
+	//what each profile has on disk, guarded by this
+	private final Map<String, byte[]> written = new HashMap<>();
+
+	TripPersister(ScheduledExecutorService executor, BiConsumer<String, String> writer)
+	{
+		this.executor = executor;
+		this.writer = writer;
+	}
+
+	void request(String profileKey, TripData trip)
+	{
+		Snapshot snapshot = snapshot(profileKey, trip);
+		if (snapshot == null)
+		{
+			return;
+		}
+		Snapshot replaced = pending.getAndSet(snapshot);
+		if (replaced != null && !replaced.profileKey.equals(profileKey))
+		{
+			//only the newest snapshot of a profile may be dropped
+			write(replaced);
+		}
+		if (scheduled.compareAndSet(false, true))
+		{
+			long delay = Math.max(0, lastWriteTime + MIN_WRITE_INTERVAL_MS - System.currentTimeMillis());
+			executor.schedule(this::writePending, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	//Writes the trip right away on the calling thread, for shutting down and switching profiles.
+	//Taking snapshots out of pending and writing them happen under the same lock as writePending, otherwise a
+	//snapshot writePending already took could be written after (and over) the newer one written here.
+	synchronized void flush(String profileKey, TripData trip)
+	{
+		Snapshot snapshot = snapshot(profileKey, trip);
+		Snapshot replaced = pending.getAndSet(null);
+		if (replaced != null && (snapshot == null || !replaced.profileKey.equals(profileKey)))
+		{
+			write(replaced);
+		}
+		if (snapshot != null)
+		{
+			write(snapshot);
+		}
+	}
+
+	private synchronized void writePending()
+	{
+		//cleared first so a request that comes in while writing schedules another write
+		scheduled.set(false);
+		Snapshot snapshot = pending.getAndSet(null);
+		if (snapshot != null)
+		{
+			write(snapshot);
+		}
+	}
+
+	private synchronized void write(Snapshot snapshot)
+	{
+		if (Arrays.equals(written.get(snapshot.profileKey), snapshot.data))
+		{
+			return;
+		}
+		writer.accept(snapshot.profileKey, Base64.getEncoder().encodeToString(snapshot.data));
+		written.put(snapshot.profileKey, snapshot.data);
+		lastWriteTime = System.currentTimeMillis();
+	}
+
+	private static Snapshot snapshot(String profileKey, TripData trip)
+	{
+		if (profileKey == null || trip == null)
+		{
+			return null;
+		}
+		try
+		{
+			return new Snapshot(profileKey, SaveDataCodec.encodeTrip(trip));
+		}
+		catch (IOException e)
+		{
+			log.error("Failed to encode run data", e);
+			return null;
+		}
+	}
+}
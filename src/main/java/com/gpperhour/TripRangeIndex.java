@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+//Trips ordered by start time with fenwick trees over each trip's gains, losses, runtime and pause time,
+//so the totals of any start..end range of trips are summed in O(log n) without touching the trips in between.
+//In progress trips count as zero in the trees, their totals change every tick so callers add them on top.
+class TripRangeIndex
+{
+	private final List<TripData> trips = new ArrayList<>();
+	private final Map<String, Integer> positions = new HashMap<>();
+	//positions of the trips that were in progress as of the last rebuild/refresh
+	@Getter
+	private final List<Integer> inProgressPositions = new ArrayList<>();
+
+	private final LongFenwickTree gains = new LongFenwickTree();
+	private final LongFenwickTree losses = new LongFenwickTree();
+	private final LongFenwickTree runtimes = new LongFenwickTree();
+	private final LongFenwickTree pauseTimes = new LongFenwickTree();
+
+	//bumped whenever the trips or their totals change
+	@Getter
+	private int version = 0;
+
+	void rebuild(Collection<TripData> allTrips)
+	{
+		trips.clear();
+		trips.addAll(allTrips);
+		trips.sort(Comparator.comparingLong(o -> o.runStartTime));
+		positions.clear();
+		inProgressPositions.clear();
+
+		int size = trips.size();
+		gains.reset(size);
+		losses.reset(size);
+		runtimes.reset(size);
+		pauseTimes.reset(size);
+		for (int i = 0; i < size; ++i)
+		{
+			TripData trip = trips.get(i);
+			positions.put(trip.identifier, i);
+			if (trip.isInProgress())
+			{
+				inProgressPositions.add(i);
+				continue;
+			}
+			updateTripSummary(trip);
+			gains.set(i, trip.summaryGains);
+			losses.set(i, trip.summaryLosses);
+			runtimes.set(i, trip.getRuntime());
+			pauseTimes.set(i, getPauseTime(trip));
+		}
+		gains.build();
+		losses.build();
+		runtimes.build();
+		pauseTimes.build();
+		version++;
+	}
+
+	//point updates for trips that completed since the last rebuild
+	void refreshCompletedTrips()
+	{
+		for (int i = inProgressPositions.size() - 1; i >= 0; --i)
+		{
+			int position = inProgressPositions.get(i);
+			TripData trip = trips.get(position);
+			if (trip.isInProgress())
+			{
+				continue;
+			}
+			updateTripSummary(trip);
+			gains.add(position, trip.summaryGains);
+			losses.add(position, trip.summaryLosses);
+			runtimes.add(position, trip.getRuntime());
+			pauseTimes.add(position, getPauseTime(trip));
+			inProgressPositions.remove(i);
+			version++;
+		}
+	}
+
+	int size()
+	{
+		return trips.size();
+	}
+
+	TripData get(int position)
+	{
+		return trips.get(position);
+	}
+
+	//-1 if the trip isn't indexed
+	int indexOf(String identifier)
+	{
+		if (identifier == null)
+		{
+			return -1;
+		}
+		Integer position = positions.get(identifier);
+		return position == null ? -1 : position;
+	}
+
+	//range sums are inclusive of both positions
+	long getGains(int from, int to)
+	{
+		return gains.rangeSum(from, to);
+	}
+
+	long getLosses(int from, int to)
+	{
+		return losses.rangeSum(from, to);
+	}
+
+	long getRuntime(int from, int to)
+	{
+		return runtimes.rangeSum(from, to);
+	}
+
+	long getPauseTime(int from, int to)
+	{
+		return pauseTimes.rangeSum(from, to);
+	}
+
+	static long getPauseTime(TripData trip)
+	{
+		return (trip.getEndTime() - trip.runStartTime) - trip.getRuntime();
+	}
+
+	//totals of a completed trip are cached on the trip until it's valued with different prices
+	private static void updateTripSummary(TripData trip)
+	{
+		int priceVersion = (trip.priceTable != null ? trip.priceTable : GPPerHourPlugin.getPriceTable()).getVersion();
+		if (trip.summaryPriceVersion == priceVersion)
+		{
+			return;
+		}
+		ProfitLossLedger ledger = GPPerHourPlugin.buildProfitLossLedger(trip);
+		trip.summaryGains = ledger.getTotalGain();
+		trip.summaryLosses = ledger.getTotalLoss();
+		trip.summaryPriceVersion = priceVersion;
+	}
+
+	private static class LongFenwickTree
+	{
+		//1-based, tree[i] holds the sum of the (i & -i) values ending at position i - 1
+		private long[] tree = new long[1];
+		private int size;
+
+		void reset(int size)
+		{
+			if (tree.length < size + 1)
+			{
+				tree = new long[size + 1];
+			}
+			else
+			{
+				Arrays.fill(tree, 0, size + 1, 0L);
+			}
+			this.size = size;
+		}
+
+		//only valid between reset and build
+		void set(int position, long value)
+		{
+			tree[position + 1] = value;
+		}
+
+		//turns the values written with set into the tree in O(n)
+		void build()
+		{
+			for (int i = 1; i <= size; ++i)
+			{
+				int parent = i + (i & -i);
+				if (parent <= size)
+				{
+					tree[parent] += tree[i];
+				}
+			}
+		}
+
+		void add(int position, long delta)
+		{
+			for (int i = position + 1; i <= size; i += i & -i)
+			{
+				tree[i] += delta;
+			}
+		}
+
+		//sum of positions [0, count)
+		long prefixSum(int count)
+		{
+			long sum = 0;
+			for (int i = count; i > 0; i -= i & -i)
+			{
+				sum += tree[i];
+			}
+			return sum;
+		}
+
+		long rangeSum(int from, int to)
+		{
+			return prefixSum(to + 1) - prefixSum(from);
+		}
+	}
+}
@@ -28,12 +28,12 @@ import java.awt.*;
 import java.awt.event.ActionListener;
 import java.text.NumberFormat;
 import java.time.Instant;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -44,8 +44,8 @@ import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.awt.event.MouseAdapter;
 
-import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
 import net.runelite.client.util.AsyncBufferedImage;
 import net.runelite.client.util.ImageUtil;
 import net.runelite.client.util.QuantityFormatter;
@@ -57,6 +57,92 @@ public class UI {
         JPanel lootPanel = new JPanel();
         JComponent containerPanel;
         List<LedgerItem> previousLedger = new LinkedList<LedgerItem>();
+        int previousItemLimit;
+        // the grid and its slots are kept between updates, only slots whose contents changed get touched
+        JPanel grid;
+        List<LootSlot> slots = new ArrayList<>();
+        int previousHeightLimit = -1;
+    }
+
+    // One square of the loot grid along with what it is currently showing
+    static class LootSlot {
+        final JPanel panel = new JPanel();
+        final JLabel label = new JLabel();
+        // -1 when the slot isn't showing an item
+        int itemId = -1;
+        int imageQuantity;
+        Color background;
+        String text;
+        String toolTip;
+
+        LootSlot() {
+            panel.setLayout(new GridLayout(1, 1, 0, 0));
+            panel.setPreferredSize(ITEM_SIZE);
+            label.setVerticalAlignment(SwingConstants.CENTER);
+            label.setHorizontalAlignment(SwingConstants.CENTER);
+            label.setFont(FontManager.getRunescapeSmallFont());
+            panel.add(label);
+        }
+
+        void showItem(LedgerItem ledgerItem, ItemImageCache itemImageCache, GPPerHourConfig config) {
+            setBackground(ledgerItem.getQty() > 0 ? greenLootBackgroundColor : redLootBackgroundColor);
+            setText(null);
+            setToolTip(UI.buildToolTip(ledgerItem.getDescription(),
+                    UI.formatQuantity(ledgerItem.getQty(), false),
+                    UI.formatGp(ledgerItem.getPrice(), config.showExactGp()),
+                    UI.formatGp(ledgerItem.getCombinedValue(), config.showExactGp())));
+
+            int itemId = ledgerItem.getItemId();
+            int quantity = (int) Math.ceil(Math.abs(ledgerItem.getQty()));
+            if (itemId == this.itemId && quantity == imageQuantity) {
+                return;
+            }
+            this.itemId = itemId;
+            imageQuantity = quantity;
+            AsyncBufferedImage itemImage = itemImageCache.getImage(itemId, quantity, quantity > 1);
+            label.setIcon(new ImageIcon(itemImage));
+            itemImage.onLoaded(() -> {
+                // the slot may have moved on to another item before this one finished loading
+                if (this.itemId == itemId && imageQuantity == quantity) {
+                    label.setIcon(new ImageIcon(itemImage));
+                }
+            });
+        }
+
+        void showText(String text, String toolTip) {
+            clearItem();
+            setBackground(ColorScheme.DARKER_GRAY_COLOR);
+            setText(text);
+            setToolTip(toolTip);
+        }
+
+        void clearItem() {
+            if (itemId != -1) {
+                itemId = -1;
+                label.setIcon(null);
+            }
+        }
+
+        void setBackground(Color color) {
+            if (!color.equals(background)) {
+                background = color;
+                panel.setBackground(color);
+            }
+        }
+
+        void setText(String text) {
+            if (!Objects.equals(text, this.text)) {
+                this.text = text;
+                label.setText(text);
+            }
+        }
+
+        void setToolTip(String toolTip) {
+            if (!Objects.equals(toolTip, this.toolTip)) {
+                this.toolTip = toolTip;
+                label.setToolTipText(toolTip);
+            }
+        }
     }
 
     public static final ImageIcon PAUSE_ICON;
@@ -199,15 +285,6 @@ public class UI {
         }
     }
 
-    public static List<LedgerItem> sortLedger(List<LedgerItem> ledger) {
-
-        // sort by profit descending
-        ledger = ledger.stream().sorted(Comparator.comparingLong(o -> -(o.getCombinedValue())))
-                .collect(Collectors.toList());
-
-        return ledger;
-    }
-
     public static String buildToolTip(String name, String quantity, String price, String combinedValue) {
         return "<html>" + name + " x " + quantity
                 + "<br/>Price: " + price
@@ -236,86 +313,87 @@ public class UI {
         }
     }
 
-    static void updateLootGrid(List<LedgerItem> ledger, LootPanelData lootPanelData, ItemManager itemManager, GPPerHourConfig config, int heightLimit) {
-        if (UI.ledgersMatch(ledger, lootPanelData.previousLedger)) {
+    static void updateLootGrid(List<LedgerItem> ledger, LootPanelData lootPanelData, ItemImageCache itemImageCache, GPPerHourConfig config, int heightLimit) {
+        int itemLimit = config.maxLedgerItems();
+        if (itemLimit == lootPanelData.previousItemLimit && heightLimit == lootPanelData.previousHeightLimit
+                && UI.ledgersMatch(ledger, lootPanelData.previousLedger)) {
             return;
         }
         lootPanelData.previousLedger = ledger;
-        JPanel containerCurrent = new JPanel();
-        int totalItems = ledger.size();
-
-        // Calculates how many rows need to be display to fit all items
-        final int rowCount = ((totalItems % ITEMS_PER_ROW == 0) ? 0 : 1) + totalItems / ITEMS_PER_ROW;
-        containerCurrent.setLayout(new GridLayout(rowCount, ITEMS_PER_ROW, 1, 1));
-
-        // Create stacked items from the item list, calculates total price and then
-        // displays all the items in the UI.
-        for (LedgerItem ledgerItem : ledger) {
-            final JPanel slot = new JPanel();
-            boolean wasGain = ledgerItem.getQty() > 0;
-            slot.setLayout(new GridLayout(1, 1, 0, 0));
-            slot.setBackground(wasGain ? greenLootBackgroundColor : redLootBackgroundColor);
-            slot.setPreferredSize(ITEM_SIZE);
-
-            final JLabel itemLabel = new JLabel();
-
-            itemLabel.setToolTipText(UI.buildToolTip(ledgerItem.getDescription(),
-                    UI.formatQuantity(ledgerItem.getQty(), false),
-                    UI.formatGp(ledgerItem.getPrice(), config.showExactGp()),
-                    UI.formatGp(ledgerItem.getCombinedValue(), config.showExactGp())));
-            itemLabel.setVerticalAlignment(SwingConstants.CENTER);
-            itemLabel.setHorizontalAlignment(SwingConstants.CENTER);
-
-            AsyncBufferedImage itemImage = itemManager.getImage(ledgerItem.getItemId(),
-                    (int) Math.ceil(Math.abs(ledgerItem.getQty())), Math.ceil(Math.abs(ledgerItem.getQty())) > 1);
-            itemImage.addTo(itemLabel);
-
-            slot.add(itemLabel);
-            containerCurrent.add(slot);
+        lootPanelData.previousItemLimit = itemLimit;
+        LedgerSelection selection = LedgerSelection.select(ledger, itemLimit);
+        boolean hasHiddenSlot = selection.getHiddenCount() > 0;
+        int totalItems = selection.getItems().size() + (hasHiddenSlot ? 1 : 0);
+
+        // Calculates how many rows need to be display to fit all items, the last row is padded with empty slots
+        final int rowCount = Math.max(1, ((totalItems % ITEMS_PER_ROW == 0) ? 0 : 1) + totalItems / ITEMS_PER_ROW);
+        final int slotCount = rowCount * ITEMS_PER_ROW;
+
+        boolean reflow = lootPanelData.grid == null || lootPanelData.slots.size() != slotCount;
+        if (lootPanelData.grid == null) {
+            lootPanelData.grid = new JPanel();
         }
-        if (totalItems < ITEMS_PER_ROW || totalItems % ITEMS_PER_ROW != 0) {
-            int extraBoxes;
-            if (totalItems % ITEMS_PER_ROW != 0 && totalItems >= ITEMS_PER_ROW) {
-                int i = totalItems;
-                while (i % ITEMS_PER_ROW != 0) {
-                    i++;
-                }
-                extraBoxes = i - totalItems;
-            } else {
-                extraBoxes = ITEMS_PER_ROW - totalItems;
+        JPanel grid = lootPanelData.grid;
+        List<LootSlot> slots = lootPanelData.slots;
+        if (reflow) {
+            grid.setLayout(new GridLayout(rowCount, ITEMS_PER_ROW, 1, 1));
+            while (slots.size() < slotCount) {
+                LootSlot slot = new LootSlot();
+                slots.add(slot);
+                grid.add(slot.panel);
             }
-            for (int i = 0; i < extraBoxes; i++) {
-                final JPanel slot = new JPanel();
-                slot.setLayout(new GridLayout(1, 1, 0, 0));
-                slot.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-                slot.setPreferredSize(ITEM_SIZE);
-
-                containerCurrent.add(slot);
+            while (slots.size() > slotCount) {
+                grid.remove(slots.remove(slots.size() - 1).panel);
             }
         }
 
+        // Only the slots whose item, quantity or price changed get a new image or tooltip
+        int slotIndex = 0;
+        for (LedgerItem ledgerItem : selection.getItems()) {
+            slots.get(slotIndex++).showItem(ledgerItem, itemImageCache, config);
+        }
+        if (hasHiddenSlot) {
+            // everything that didn't fit in the limit, collapsed into one slot
+            slots.get(slotIndex++).showText("+" + selection.getHiddenCount(), selection.getHiddenDescription() + ": "
+                    + UI.formatGp(selection.getHiddenValue(), config.showExactGp()) + " gp");
+        }
+        while (slotIndex < slotCount) {
+            slots.get(slotIndex++).showText(null, null);
+        }
 
-        if (lootPanelData.containerPanel != null)
-            lootPanelData.lootPanel.remove(lootPanelData.containerPanel);
-        if (heightLimit != 0)
-        {
-            // Wrap the panel in a JScrollPane
-            JScrollPane scrollPane = new JScrollPane(containerCurrent);
-            scrollPane.getVerticalScrollBar().setPreferredSize(new Dimension(12, 0));
-            scrollPane.getVerticalScrollBar().setBorder(new EmptyBorder(0, 5, 0, 0));
-            scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-            scrollPane.setMaximumSize(new Dimension(0, heightLimit));
-            if (scrollPane.getPreferredSize().height > heightLimit)
-                scrollPane.setPreferredSize(new Dimension(0, heightLimit));
-            lootPanelData.containerPanel = scrollPane;
+        if (heightLimit != lootPanelData.previousHeightLimit) {
+            lootPanelData.previousHeightLimit = heightLimit;
+            if (lootPanelData.containerPanel != null)
+                lootPanelData.lootPanel.remove(lootPanelData.containerPanel);
+            if (heightLimit != 0)
+            {
+                // Wrap the panel in a JScrollPane
+                JScrollPane scrollPane = new JScrollPane(grid);
+                scrollPane.getVerticalScrollBar().setPreferredSize(new Dimension(12, 0));
+                scrollPane.getVerticalScrollBar().setBorder(new EmptyBorder(0, 5, 0, 0));
+                scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+                scrollPane.setMaximumSize(new Dimension(0, heightLimit));
+                lootPanelData.containerPanel = scrollPane;
+            }
+            else
+            {
+                lootPanelData.containerPanel = grid;
+            }
+            lootPanelData.lootPanel.add(lootPanelData.containerPanel);
+            reflow = true;
         }
-        else
-        {
-            lootPanelData.containerPanel = containerCurrent;
+
+        if (reflow) {
+            if (heightLimit != 0) {
+                // the scroll pane grows with the grid until it hits the height limit
+                JComponent scrollPane = lootPanelData.containerPanel;
+                scrollPane.setPreferredSize(null);
+                if (scrollPane.getPreferredSize().height > heightLimit)
+                    scrollPane.setPreferredSize(new Dimension(0, heightLimit));
+            }
+            lootPanelData.lootPanel.revalidate();
+            lootPanelData.lootPanel.repaint();
         }
-        lootPanelData.lootPanel.add(lootPanelData.containerPanel);
-        lootPanelData.lootPanel.revalidate();
-        lootPanelData.lootPanel.repaint();
     }
 
     static {
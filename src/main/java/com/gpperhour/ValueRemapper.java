@@ -39,6 +39,36 @@ public class ValueRemapper {
     //Used for when a value maps 1:1 with another value
     private static final Map<Integer, Integer> directValueRemaps;
 
+    //Config key prefix -> the item whose remapped price reads those config items
+    private static final Map<String, Integer> configKeyPrefixes = new HashMap<>();
+
+    static
+    {
+        configKeyPrefixes.put("tokkul", ItemID.TZHAAR_TOKEN);
+        configKeyPrefixes.put("crystalShard", ItemID.PRIF_CRYSTAL_SHARD);
+        configKeyPrefixes.put("crystalDust", ItemID.PRIF_CRYSTAL_SHARD_CRUSHED);
+        configKeyPrefixes.put("mermaidsTear", ItemID.FOSSIL_MERMAID_TEAR);
+        configKeyPrefixes.put("stardust", ItemID.STAR_DUST);
+        configKeyPrefixes.put("unidentifiedMinerals", ItemID.MGUILD_MINERALS);
+        configKeyPrefixes.put("goldenNugget", ItemID.MOTHERLODE_NUGGET);
+        configKeyPrefixes.put("hallowedMark", ItemID.HALLOWED_MARK);
+        configKeyPrefixes.put("abyssalPearls", ItemID.ABYSSAL_PEARL);
+        configKeyPrefixes.put("brimstoneKey", ItemID.KONAR_KEY);
+    }
+
+    //Returns the item whose price depends on the config item, or -1 if there isn't one
+    static int getItemForConfigKey(String configKey)
+    {
+        for (Map.Entry<String, Integer> entry : configKeyPrefixes.entrySet())
+        {
+            if (configKey.startsWith(entry.getKey()))
+            {
+                return entry.getValue();
+            }
+        }
+        return -1;
+    }
+
     static
     {
         directValueRemaps = new HashMap<>();
@@ -54,6 +54,7 @@ import com.google.gson.Gson;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
@@ -133,6 +134,8 @@ public class ChargedItem {
 	protected int charges = ChargedItemManager.CHARGES_UNKNOWN;
 	@Getter
 	protected Map<Integer, Float> itemQuantities = null;
+	@Setter
+	@Nullable private Runnable onChargesChanged;
 
 	@Nullable 
 	protected Integer negative_full_charges;
@@ -168,6 +171,7 @@ public class ChargedItem {
 		client_thread.invokeLater(() -> {
 			loadChargesFromConfig();
 			onChargesUpdated();
+			notifyChargesChanged();
 			onItemContainerUpdated(client.getItemContainer(InventoryID.INV));
 			onItemContainerUpdated(client.getItemContainer(InventoryID.WORN));
 		});
@@ -413,7 +417,10 @@ public class ChargedItem {
 		this.in_equipment = in_equipment;
 		this.in_inventory = in_inventory;
 		this.isInInventoryOrEquipment = inInventoryOrEquipment;
-		if (charges != null) this.charges = charges;
+		if (charges != null && this.charges != charges) {
+			this.charges = charges;
+			notifyChargesChanged();
+		}
 	}
 
 	public void onChatMessage(final ChatMessage event) {
@@ -510,6 +517,7 @@ public class ChargedItem {
 					if (extra != null) {
 						setConfiguration(config_key + "_" + extra_group, extra.replaceAll(",", ""));
 						onChargesUpdated();
+						notifyChargesChanged();
 					}
 				}
 			}
@@ -858,6 +866,7 @@ public class ChargedItem {
 
 		this.charges = charges;
 		onChargesUpdated();
+		notifyChargesChanged();
 
 		if (config_key != null) {
 			setConfiguration(config_key, charges);
@@ -869,6 +878,11 @@ public class ChargedItem {
 	private void onItemQuantitiesModified() {
 
 		itemQuantitiesNeedsSaving = true;
+		notifyChargesChanged();
+	}
+
+	private void notifyChargesChanged() {
+		if (onChargesChanged != null) onChargesChanged.run();
 	}
 
 	private void saveItemQuantities()
@@ -902,6 +916,7 @@ public class ChargedItem {
 
 	private void updateItemId(final int item_id) {
 		this.item_id = item_id;
+		notifyChargesChanged();
 	}
 
 	protected void onChargesUpdated() {}
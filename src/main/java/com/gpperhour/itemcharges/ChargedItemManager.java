@@ -32,6 +32,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 
 import com.gpperhour.GPPerHourConfig;
+import com.gpperhour.PerfTimers;
 import com.gpperhour.itemcharges.items.S_KharedstMemoirs;
 import com.gpperhour.itemcharges.items.U_AshSanctifier;
 import com.gpperhour.itemcharges.items.U_BloodEssence;
@@ -48,6 +49,7 @@ import com.gpperhour.itemcharges.items.U_LogBasket;
 import com.gpperhour.itemcharges.items.U_SeedBox;
 import com.google.gson.Gson;
 
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.events.AnimationChanged;
@@ -105,6 +107,10 @@ public class ChargedItemManager {
 
 	private ChargedItem[] chargedItems = new ChargedItem[0];
 
+	//lets the plugin know it needs to re-value whatever is holding the item
+	@Setter
+	private Runnable onChargesChanged;
+
 	public void loadConfigData() {
 		chargedItems = new ChargedItem[]{
 			new U_FishBarrel(client, client_thread, configs, items, chat_messages, notifier, gson, executorService),
@@ -122,6 +128,17 @@ public class ChargedItemManager {
 			new U_HerbSack(client, client_thread, configs, items, chat_messages, notifier, gson, executorService),
 			new U_SeedBox(client, client_thread, configs, items, chat_messages, notifier, gson, executorService),
 		};
+		for (final ChargedItem chargedItem : this.chargedItems) {
+			chargedItem.setOnChargesChanged(this::notifyChargesChanged);
+		}
+	}
+
+	private void notifyChargesChanged()
+	{
+		if (onChargesChanged != null)
+		{
+			onChargesChanged.run();
+		}
 	}
 
 	@Subscribe
@@ -129,9 +146,11 @@ public class ChargedItemManager {
 	{
 		log.debug("ITEM DESPAWNED | " + event.getItem().getId());
 
+		long timerStart = PerfTimers.start();
 		for (final ChargedItem chargedItem : this.chargedItems) {
 			chargedItem.onItemDespawned(event);
 		}
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 	}
 
 	@Subscribe
@@ -139,23 +158,29 @@ public class ChargedItemManager {
 	{
 		log.debug("STAT CHANGED | " + event.getSkill());
 
+		long timerStart = PerfTimers.start();
 		for (final ChargedItem chargedItem : this.chargedItems) {
 			chargedItem.onStatChanged(event);
 		}
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 	}
 
 	@Subscribe
 	public void onItemContainerChanged(final ItemContainerChanged event) {
 		log.debug("ITEM CONTAINER | " + event.getContainerId());
 
+		long timerStart = PerfTimers.start();
 		for (final ChargedItem chargedItem : this.chargedItems) {
 			chargedItem.onItemContainersChanged(event);
 		}
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 	}
 
 	@Subscribe
 	public void onChatMessage(final ChatMessage event) {
+		long timerStart = PerfTimers.start();
 		Arrays.stream(chargedItems).forEach(chargedItem -> chargedItem.onChatMessage(event));
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 		log.debug(
 			"MESSAGE | " +
 				"type: " + event.getType().name() +
@@ -166,7 +191,9 @@ public class ChargedItemManager {
 
 	@Subscribe
 	public void onAnimationChanged(final AnimationChanged event) {
+		long timerStart = PerfTimers.start();
 		Arrays.stream(chargedItems).forEach(chargedItem -> chargedItem.onAnimationChanged(event));
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 		if (event.getActor() == client.getLocalPlayer()) {
 			log.debug("ANIMATION | " +
 				"id: " + event.getActor().getAnimation()
@@ -176,7 +203,9 @@ public class ChargedItemManager {
 
 	@Subscribe
 	public void onGraphicChanged(final GraphicChanged event) {
+		long timerStart = PerfTimers.start();
 		Arrays.stream(chargedItems).forEach(chargedItem -> chargedItem.onGraphicChanged(event));
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 		if (event.getActor() == client.getLocalPlayer()) {
 			log.debug("GRAPHIC | " +
 				"id: " + event.getActor().getGraphic()
@@ -198,7 +227,9 @@ public class ChargedItemManager {
 
 	@Subscribe
 	public void onHitsplatApplied(final HitsplatApplied event) {
+		long timerStart = PerfTimers.start();
 		Arrays.stream(chargedItems).forEach(chargedItem -> chargedItem.onHitsplatApplied(event));
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 		log.debug("HITSPLAT | " +
 			"actor: " + (event.getActor() == client.getLocalPlayer() ? "self" : "enemy") +
 			", type: " + event.getHitsplat().getHitsplatType() +
@@ -210,7 +241,9 @@ public class ChargedItemManager {
 
 	@Subscribe
 	public void onWidgetLoaded(final WidgetLoaded event) {
+		long timerStart = PerfTimers.start();
 		Arrays.stream(chargedItems).forEach(chargedItem -> chargedItem.onWidgetLoaded(event));
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 		log.debug("WIDGET | " +
 			"group: " + event.getGroupId()
 		);
@@ -218,7 +251,9 @@ public class ChargedItemManager {
 
 	@Subscribe
 	public void onMenuOptionClicked(final MenuOptionClicked event) {
+		long timerStart = PerfTimers.start();
 		Arrays.stream(chargedItems).forEach(chargedItem -> chargedItem.onMenuOptionClicked(event));
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 		log.debug("OPTION | " +
 			"option: " + event.getMenuOption() +
 			", target: " + event.getMenuTarget() +
@@ -229,9 +264,11 @@ public class ChargedItemManager {
 
 	@Subscribe
 	public void onGameTick(final GameTick gametick) {
+		long timerStart = PerfTimers.start();
 		for (final ChargedItem chargedItem : this.chargedItems) {
 			chargedItem.onGameTick(gametick);
 		}
+		PerfTimers.stop(PerfTimers.Timer.CHARGED_ITEMS_DISPATCH, timerStart);
 	}
 
 
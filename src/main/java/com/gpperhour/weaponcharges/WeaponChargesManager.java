@@ -25,6 +25,7 @@
 package com.gpperhour.weaponcharges;
 
 import com.gpperhour.GPPerHourConfig;
+import com.gpperhour.PerfTimers;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -38,6 +39,7 @@ import javax.inject.Inject;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Actor;
 import net.runelite.api.ChatMessageType;
@@ -442,6 +444,13 @@ public class WeaponChargesManager
 
 	@Subscribe
 	public void onChatMessage(ChatMessage event)
+	{
+		long timerStart = PerfTimers.start();
+		handleChatMessage(event);
+		PerfTimers.stop(PerfTimers.Timer.WEAPON_CHARGES_CHAT, timerStart);
+	}
+
+	private void handleChatMessage(ChatMessage event)
 	{
 		if (event.getType() != ChatMessageType.GAMEMESSAGE && event.getType() != ChatMessageType.SPAM)
 		{
@@ -869,6 +878,18 @@ public class WeaponChargesManager
 	@Inject
 	ConfigManager configManager;
 
+	//lets the plugin know it needs to re-value whatever is holding the weapon
+	@Setter
+	private Runnable onChargesChanged;
+
+	private void notifyChargesChanged()
+	{
+		if (onChargesChanged != null)
+		{
+			onChargesChanged.run();
+		}
+	}
+
 	public Integer getCharges(ChargedWeapon weapon) {
 		String configString = configManager.getRSProfileConfiguration(CONFIG_GROUP_NAME, weapon.configKeyName);
 		if (configString == null) return null;
@@ -881,6 +902,7 @@ public class WeaponChargesManager
 
 	public void setCharges(ChargedWeapon weapon, int charges, boolean logChange) {
 		configManager.setRSProfileConfiguration(CONFIG_GROUP_NAME, weapon.configKeyName, Math.max(charges, 0));
+		notifyChargesChanged();
 		if (verboseLogging)
 		{
 			log.info("set charges for " + weapon + " to " + charges);
@@ -911,6 +933,7 @@ public class WeaponChargesManager
 	private void setDartsLeft(float dartsLeft, boolean logChange)
 	{
 		configManager.setRSProfileConfiguration(CONFIG_GROUP_NAME, "blowpipeDarts", dartsLeft);
+		notifyChargesChanged();
 		if (verboseLogging)
 		{
 			log.info("set darts left to " + dartsLeft);
@@ -932,6 +955,7 @@ public class WeaponChargesManager
 	void setDartType(DartType dartType)
 	{
 		configManager.setRSProfileConfiguration(CONFIG_GROUP_NAME, "blowpipeDartType", dartType);
+		notifyChargesChanged();
 		if (verboseLogging)
 			log.info("set dart type to " + dartType);
 	}
@@ -951,6 +975,7 @@ public class WeaponChargesManager
 	private void setScalesLeft(float scalesLeft, boolean logChange)
 	{
 		configManager.setRSProfileConfiguration(CONFIG_GROUP_NAME, "blowpipeScales", scalesLeft);
+		notifyChargesChanged();
 		if (verboseLogging)
 		{
 			log.info("set scales left to " + scalesLeft);
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2023, Moshe Ben-Zacharia <https://github.com/MosheBenZacharia>, Eric Versteeg <https://github.com/erversteeg>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.gpperhour;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+public class SaveDataCodecTest
+{
+	private final Gson gson = new Gson();
+
+	private static ItemQtyMap qtys(float... idsAndQtys)
+	{
+		ItemQtyMap map = new ItemQtyMap();
+		for (int i = 0; i < idsAndQtys.length; i += 2)
+		{
+			map.put((int) idsAndQtys[i], idsAndQtys[i + 1]);
+		}
+		return map;
+	}
+
+	private static TripData trip()
+	{
+		TripData trip = new TripData();
+		trip.identifier = "a3c1f0e2-trip";
+		trip.runStartTime = 1700000000000L;
+		trip.runEndTime = 1700000600000L;
+		trip.runtime = 598200;
+		trip.isPaused = true;
+		//negative ids, whole and fractional quantities, losses
+		trip.initialItemQtys = qtys(-3, 1, 995, 25000, 4151, 1, 12934, 0.25f);
+		trip.bankedItemQtys = qtys(536, -4, 2000000, 123456789);
+		trip.itemQtys = qtys(995, 26500, 12934, 1.75f);
+		return trip;
+	}
+
+	private static SessionStats session(ItemQtyMap initialQtys, ItemQtyMap qtys)
+	{
+		SessionStats stats = new SessionStats(1700000900000L, 3600000, 1250000, -300000, 950000, 7, 514285, initialQtys, qtys);
+		stats.sessionID = "b7d2-session";
+		stats.sessionName = "Vorkath";
+		return stats;
+	}
+
+	private static void assertTripsEqual(TripData expected, TripData actual)
+	{
+		assertEquals(expected.identifier, actual.identifier);
+		assertEquals(expected.runStartTime, actual.runStartTime);
+		assertEquals(expected.runEndTime, actual.runEndTime);
+		assertEquals(expected.runtime, actual.runtime);
+		assertEquals(expected.isPaused, actual.isPaused);
+		assertEquals(expected.initialItemQtys, actual.initialItemQtys);
+		assertEquals(expected.bankedItemQtys, actual.bankedItemQtys);
+	}
+
+	private static void assertSummariesEqual(SessionStats expected, SessionStats actual)
+	{
+		assertEquals(expected.sessionID, actual.sessionID);
+		assertEquals(expected.sessionName, actual.sessionName);
+		assertEquals(expected.getSessionSaveTime(), actual.getSessionSaveTime());
+		assertEquals(expected.getSessionRuntime(), actual.getSessionRuntime());
+		assertEquals(expected.getTotalGain(), actual.getTotalGain());
+		assertEquals(expected.getTotalLoss(), actual.getTotalLoss());
+		assertEquals(expected.getNetTotal(), actual.getNetTotal());
+		assertEquals(expected.getTripCount(), actual.getTripCount());
+		assertEquals(expected.getAvgTripDuration(), actual.getAvgTripDuration());
+	}
+
+	@Test
+	public void tripRoundTrip() throws IOException
+	{
+		TripData trip = trip();
+		byte[] data = SaveDataCodec.encodeTrip(trip);
+		assertFalse(SaveDataCodec.isJson(data));
+		assertTripsEqual(trip, SaveDataCodec.decodeTrip(data, gson));
+	}
+
+	@Test
+	public void inProgressTripRoundTrip() throws IOException
+	{
+		TripData trip = trip();
+		trip.runEndTime = null;
+		trip.isPaused = false;
+		trip.runtime = -1;
+		assertTripsEqual(trip, SaveDataCodec.decodeTrip(SaveDataCodec.encodeTrip(trip), gson));
+	}
+
+	@Test
+	public void nullAndEmptyMapsRoundTrip() throws IOException
+	{
+		TripData trip = trip();
+		trip.identifier = null;
+		trip.initialItemQtys = new ItemQtyMap();
+		trip.bankedItemQtys = null;
+		TripData decoded = SaveDataCodec.decodeTrip(SaveDataCodec.encodeTrip(trip), gson);
+		assertNull(decoded.identifier);
+		assertEquals(0, decoded.initialItemQtys.size());
+		assertNull(decoded.bankedItemQtys);
+	}
+
+	@Test
+	public void tripStateCarriesItemQtys() throws IOException
+	{
+		TripData trip = trip();
+		TripData decoded = SaveDataCodec.decodeTripState(SaveDataCodec.encodeTripState(trip));
+		assertTripsEqual(trip, decoded);
+		assertEquals(trip.itemQtys, decoded.itemQtys);
+	}
+
+	@Test
+	public void sessionRoundTrip() throws IOException
+	{
+		SessionStats stats = session(trip().initialItemQtys, trip().bankedItemQtys);
+		SessionStats decoded = SaveDataCodec.decodeSession(SaveDataCodec.encodeSession(stats), gson);
+		assertSummariesEqual(stats, decoded);
+		assertEquals(stats.getInitialQtys(), decoded.getInitialQtys());
+		assertEquals(stats.getQtys(), decoded.getQtys());
+	}
+
+	@Test
+	public void sessionWithNullMapsRoundTrip() throws IOException
+	{
+		SessionStats stats = session(null, null);
+		stats.sessionName = null;
+		SessionStats decoded = SaveDataCodec.decodeSession(SaveDataCodec.encodeSession(stats), gson);
+		assertSummariesEqual(stats, decoded);
+		assertNull(decoded.getInitialQtys());
+		assertNull(decoded.getQtys());
+	}
+
+	@Test
+	public void sessionSummarySkipsItemMaps() throws IOException
+	{
+		SessionStats stats = session(trip().initialItemQtys, trip().bankedItemQtys);
+		SessionStats summary = SaveDataCodec.decodeSessionSummary(SaveDataCodec.encodeSession(stats), gson);
+		assertSummariesEqual(stats, summary);
+		assertFalse(summary.hasQtys());
+	}
+
+	@Test
+	public void readsOlderJson() throws IOException
+	{
+		TripData trip = trip();
+		byte[] tripJson = gson.toJson(trip).getBytes(StandardCharsets.UTF_8);
+		assertTrue(SaveDataCodec.isJson(tripJson));
+		assertTripsEqual(trip, SaveDataCodec.decodeTrip(tripJson, gson));
+
+		SessionStats stats = session(trip.initialItemQtys, trip.bankedItemQtys);
+		byte[] sessionJson = gson.toJson(stats).getBytes(StandardCharsets.UTF_8);
+		SessionStats decoded = SaveDataCodec.decodeSession(sessionJson, gson);
+		assertSummariesEqual(stats, decoded);
+		assertEquals(stats.getQtys(), decoded.getQtys());
+		//json can't be read partially, the summary comes back whole
+		assertTrue(SaveDataCodec.decodeSessionSummary(sessionJson, gson).hasQtys());
+	}
+
+	@Test(expected = CorruptSaveDataException.class)
+	public void truncatedDataThrows() throws IOException
+	{
+		byte[] data = SaveDataCodec.encodeTrip(trip());
+		SaveDataCodec.decodeTrip(Arrays.copyOf(data, data.length - 3), gson);
+	}
+
+	@Test(expected = CorruptSaveDataException.class)
+	public void wrongKindThrows() throws IOException
+	{
+		SaveDataCodec.decodeTrip(SaveDataCodec.encodeSession(session(null, null)), gson);
+	}
+
+	@Test(expected = CorruptSaveDataException.class)
+	public void malformedSessionJsonThrows() throws IOException
+	{
+		SaveDataCodec.decodeSession("{\"sessionID\": [".getBytes(StandardCharsets.UTF_8), gson);
+	}
+
+	@Test
+	public void newerVersionIsNotCorrupt()
+	{
+		try
+		{
+			byte[] data = SaveDataCodec.encodeSession(session(null, null));
+			//the version varint follows the magic and kind
+			data[3] = SaveDataCodec.SCHEMA_VERSION + 1;
+			SaveDataCodec.decodeSession(data, gson);
+			fail();
+		}
+		catch (IOException e)
+		{
+			assertFalse(e instanceof CorruptSaveDataException);
+		}
+	}
+}